@@ -194,4 +194,8 @@ public abstract class AbstractEndpoint extends PropertyChangeNotifier {
     public void decrementSelectedCount() {}
 
     public abstract void sendMessage(String paramString) throws IOException;
+
+    public void sendMessage(EncodedMessage msg) throws IOException {
+        sendMessage(msg.getMessage());
+    }
 }
@@ -30,6 +30,8 @@ public abstract class AbstractEndpointMessageTransport {
 
     protected void onClientHello(Object src, JSONObject jsonObject) {}
 
+    protected void onOctoSubscriptionChangedEvent(Object src, JSONObject jsonObject) {}
+
     private void onJSONData(Object src, JSONObject jsonObject, String colibriClass) {
         switch (colibriClass) {
             case "SelectedEndpointChangedEvent":
@@ -56,6 +58,9 @@ public abstract class AbstractEndpointMessageTransport {
             case "ReceiverVideoConstraint":
                 onReceiverVideoConstraintEvent(src, jsonObject);
                 return;
+            case "OctoSubscriptionChangedEvent":
+                onOctoSubscriptionChangedEvent(src, jsonObject);
+                return;
         }
         this.logger.info("Received a message with unknown colibri class: " + colibriClass);
     }
@@ -81,10 +86,10 @@ public abstract class AbstractEndpointMessageTransport {
                 this.logger.warn("Unable to find endpoint " + to + " to send EndpointMessage");
             }
         }
-        sendMessageToEndpoints(jsonObject.toString(), endpointSubset);
+        sendMessageToEndpoints(new EncodedMessage(jsonObject.toString(), "EndpointMessage"), endpointSubset);
     }
 
-    protected void sendMessageToEndpoints(String msg, List<AbstractEndpoint> endpoints) {
+    protected void sendMessageToEndpoints(EncodedMessage msg, List<AbstractEndpoint> endpoints) {
         Conference conference = getConference();
         if (conference != null)
             conference.sendMessage(msg, endpoints, true);
@@ -156,6 +161,10 @@ public abstract class AbstractEndpointMessageTransport {
 
     protected void sendMessage(String msg) throws IOException {}
 
+    protected void sendMessage(EncodedMessage msg) throws IOException {
+        sendMessage(msg.getMessage());
+    }
+
     protected void close() {}
 
     protected abstract void onPinnedEndpointChangedEvent(Object paramObject, JSONObject paramJSONObject);
@@ -0,0 +1,85 @@
+package org.jitsi.videobridge;
+
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jitsi.service.configuration.ConfigurationService;
+import org.jitsi.service.libjitsi.LibJitsi;
+import org.jitsi.utils.logging.Logger;
+
+class BitrateReallocator {
+    public static final String PARALLELISM_PNAME = "org.jitsi.videobridge.BITRATE_REALLOCATION_PARALLELISM";
+
+    private static final int DEFAULT_PARALLELISM = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    private static final int SEQUENTIAL_THRESHOLD = 2;
+
+    private static final Logger logger = Logger.getLogger(BitrateReallocator.class);
+
+    private static final int parallelism;
+
+    private static final ForkJoinPool pool;
+
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+        int p = (cfg == null) ? DEFAULT_PARALLELISM : cfg.getInt(PARALLELISM_PNAME, DEFAULT_PARALLELISM);
+        parallelism = Math.max(1, p);
+        if (parallelism > 1) {
+            AtomicInteger threadCount = new AtomicInteger();
+            pool = new ForkJoinPool(parallelism, p1 -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p1);
+                thread.setName(BitrateReallocator.class.getSimpleName() + "-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, null, false);
+        } else {
+            pool = null;
+        }
+    }
+
+    static void reallocate(List<RtpChannel> channels) {
+        if (channels.isEmpty())
+            return;
+        if (pool == null || channels.size() <= SEQUENTIAL_THRESHOLD) {
+            for (RtpChannel channel : channels)
+                reallocate(channel);
+        } else {
+            pool.invoke(new ReallocateAction(channels, 0, channels.size()));
+        }
+    }
+
+    private static void reallocate(RtpChannel channel) {
+        try {
+            channel.speechActivityEndpointsChanged();
+        } catch (Exception e) {
+            logger.error("Failed to reallocate bitrate for channel " + channel.getID(), e);
+        }
+    }
+
+    private static class ReallocateAction extends RecursiveAction {
+        private final List<RtpChannel> channels;
+
+        private final int from;
+
+        private final int to;
+
+        private ReallocateAction(List<RtpChannel> channels, int from, int to) {
+            this.channels = channels;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (this.to - this.from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = this.from; i < this.to; i++)
+                    reallocate(this.channels.get(i));
+            } else {
+                int mid = this.from + this.to >>> 1;
+                invokeAll(new ReallocateAction(this.channels, this.from, mid), new ReallocateAction(this.channels, mid, this.to));
+            }
+        }
+    }
+}
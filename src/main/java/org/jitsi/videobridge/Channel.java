@@ -4,6 +4,8 @@ package org.jitsi.videobridge;
 import java.io.IOException;
 import java.util.Objects;
 import org.jitsi.eventadmin.EventAdmin;
+import org.jitsi.service.configuration.ConfigurationService;
+import org.jitsi.service.libjitsi.LibJitsi;
 import org.jitsi.service.neomedia.MediaStreamTarget;
 import org.jitsi.service.neomedia.SrtpControl;
 import org.jitsi.service.neomedia.StreamConnector;
@@ -12,6 +14,8 @@ import org.jitsi.utils.StringUtils;
 import org.jitsi.utils.event.PropertyChangeNotifier;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.octo.OctoTransportManager;
+import org.jitsi.videobridge.util.CachedClock;
+import org.jitsi.videobridge.util.ExpireTimingWheel;
 import org.jitsi.videobridge.util.Expireable;
 import org.jitsi.videobridge.util.ExpireableImpl;
 import org.jitsi.xmpp.extensions.colibri.ColibriConferenceIQ;
@@ -26,8 +30,19 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
 
     public static final String ENDPOINT_PROPERTY_NAME = ".endpoint";
 
+    public static final String ACTIVITY_PUBLISH_INTERVAL_PNAME = "org.jitsi.videobridge.ACTIVITY_PUBLISH_INTERVAL_MS";
+
+    private static final long DEFAULT_ACTIVITY_PUBLISH_INTERVAL_MS = 100L;
+
     private static final Logger classLogger = Logger.getLogger(Channel.class);
 
+    private static final long activityPublishIntervalMs;
+
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+        activityPublishIntervalMs = (cfg == null) ? DEFAULT_ACTIVITY_PUBLISH_INTERVAL_MS : cfg.getLong(ACTIVITY_PUBLISH_INTERVAL_PNAME, DEFAULT_ACTIVITY_PUBLISH_INTERVAL_MS);
+    }
+
     private final String channelBundleId;
 
     public static String getLoggingId(Channel channel) {
@@ -59,6 +74,8 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
 
     private final MonotonicAtomicLong lastPayloadActivityTime = new MonotonicAtomicLong();
 
+    private volatile long lastPayloadPublishTime = -1L;
+
     private StreamConnector streamConnector;
 
     private TransportManager transportManager;
@@ -71,6 +88,8 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
 
     private final ExpireableImpl expireableImpl;
 
+    private final ExpireTimingWheel.Timer expireTimer;
+
     public Channel(Content content, String id, String channelBundleId, String transportNamespace, Boolean initiator) {
         Objects.requireNonNull(content, "content");
 //        StringUtils.requireNotNullOrEmpty(id, "id");
@@ -86,6 +105,8 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
             transportNamespace = getContent().getConference().getVideobridge().getDefaultTransportManager();
         this.transportNamespace = transportNamespace;
         this.expireableImpl = new ExpireableImpl(getLoggingId(), this::expire);
+        this.expireTimer = content.getConference().getVideobridge().getExpireThread()
+                .schedule(this, () -> getLastActivityTime() + 1000L * getExpire());
         touch();
     }
 
@@ -148,6 +169,7 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
                 return false;
             this.expired = true;
         }
+        this.expireTimer.cancel();
         Content content = getContent();
         Conference conference = content.getConference();
         EventAdmin eventAdmin = conference.getEventAdmin();
@@ -277,6 +299,8 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
     protected abstract void maybeStartStream() throws IOException;
 
     protected void onEndpointChanged(AbstractEndpoint oldValue, AbstractEndpoint newValue) {
+        if (newValue instanceof Endpoint)
+            ((Endpoint)newValue).channelAttached(this);
         firePropertyChange(".endpoint", oldValue, newValue);
     }
 
@@ -337,15 +361,25 @@ public abstract class Channel extends PropertyChangeNotifier implements Expireab
     }
 
     public void touch(ActivityType activityType) {
-        long now = System.currentTimeMillis();
+        long now = CachedClock.INSTANCE.millis();
+        if (activityType == ActivityType.PAYLOAD && activityPublishIntervalMs > 0L) {
+            long lastPayloadPublishTime = this.lastPayloadPublishTime;
+            if (lastPayloadPublishTime > -1L && now - lastPayloadPublishTime < activityPublishIntervalMs)
+                return;
+            this.lastPayloadPublishTime = now;
+        }
         switch (activityType) {
             case PAYLOAD:
                 this.lastPayloadActivityTime.increase(now);
             case TRANSPORT:
                 this.lastTransportActivityTime.increase(now);
+                AbstractEndpoint endpoint = this.endpoint;
+                if (endpoint instanceof Endpoint)
+                    ((Endpoint)endpoint).transportActivity(now);
                 break;
         }
         this.lastActivityTime.increase(now);
+        this.expireTimer.touch();
     }
 
     public void touch() {
@@ -9,14 +9,15 @@ import java.lang.reflect.UndeclaredThrowableException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
@@ -35,9 +36,12 @@ import org.jitsi.utils.event.PropertyChangeNotifier;
 import org.jitsi.utils.event.WeakReferencePropertyChangeListener;
 import org.jitsi.utils.logging.DiagnosticContext;
 import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.cc.SpeakerOrderedTrackCatalog;
 import org.jitsi.videobridge.octo.OctoEndpoints;
+import org.jitsi.videobridge.util.ExpireTimingWheel;
 import org.jitsi.videobridge.util.Expireable;
 import org.jitsi.videobridge.util.ExpireableImpl;
+import org.jitsi.videobridge.util.LatencyHistogram;
 import org.jitsi.xmpp.extensions.colibri.ColibriConferenceIQ;
 import org.jxmpp.jid.Jid;
 import org.jxmpp.jid.parts.Localpart;
@@ -94,6 +98,8 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
 
     private final Map<String, IceUdpTransportManager> transportManagers = new HashMap<>();
 
+    private final Map<MediaType, Map<Long, RtpChannel>> channelsByReceiveSSRC = new EnumMap<>(MediaType.class);
+
     private final Videobridge videobridge;
 
     private final Statistics statistics = new Statistics();
@@ -106,6 +112,10 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
 
     private final ExpireableImpl expireableImpl;
 
+    private final ExpireTimingWheel.Timer expireTimer;
+
+    private final SpeakerOrderedTrackCatalog trackCatalog;
+
     public Conference(Videobridge videobridge, String id, Jid focus, Localpart name, boolean enableLogging, String gid) {
         this.videobridge = Objects.<Videobridge>requireNonNull(videobridge, "videobridge");
         this.id = Objects.<String>requireNonNull(id, "id");
@@ -118,9 +128,14 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
         if (!enableLogging)
             this.logger.setLevel(Level.WARNING);
         this.lastKnownFocus = focus;
+        for (MediaType mediaType : MediaType.values())
+            this.channelsByReceiveSSRC.put(mediaType, new ConcurrentHashMap<>());
         this.speechActivity = new ConferenceSpeechActivity(this);
         this.speechActivity.addPropertyChangeListener(this.propertyChangeListener);
+        this.trackCatalog = new SpeakerOrderedTrackCatalog(this.speechActivity);
         this.expireableImpl = new ExpireableImpl(this.loggingId, this::expire);
+        this.expireTimer = videobridge.getExpireThread()
+                .schedule(this, () -> getLastActivityTime() + 60000L);
         if (enableLogging) {
             this.eventAdmin.sendEvent(EventFactory.conferenceCreated(this));
             Videobridge.Statistics videobridgeStatistics = videobridge.getStatistics();
@@ -145,18 +160,22 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
     }
 
     public void sendMessage(String msg, List<AbstractEndpoint> endpoints, boolean sendToOcto) {
+        sendMessage(new EncodedMessage(msg), endpoints, sendToOcto);
+    }
+
+    public void sendMessage(EncodedMessage encodedMessage, List<AbstractEndpoint> endpoints, boolean sendToOcto) {
         for (AbstractEndpoint endpoint : endpoints) {
             try {
-                endpoint.sendMessage(msg);
+                endpoint.sendMessage(encodedMessage);
             } catch (IOException e) {
                 this.logger.error("Failed to send message on data channel to: " + endpoint
 
-                        .getID() + ", msg: " + msg, e);
+                        .getID() + ", msg: " + encodedMessage, e);
             }
         }
         OctoEndpoints octoEndpoints = this.octoEndpoints;
         if (sendToOcto && octoEndpoints != null)
-            octoEndpoints.sendMessage(msg);
+            octoEndpoints.sendMessage(encodedMessage);
     }
 
     public void sendMessage(String msg, List<AbstractEndpoint> endpoints) {
@@ -167,6 +186,10 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
         sendMessage(msg, getEndpoints(), sendToOcto);
     }
 
+    public void broadcastMessage(EncodedMessage msg, boolean sendToOcto) {
+        sendMessage(msg, getEndpoints(), sendToOcto);
+    }
+
     public void broadcastMessage(String msg) {
         broadcastMessage(msg, false);
     }
@@ -266,9 +289,9 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
                     getLoggingId() + " ds_id=" + id);
         }
         if (dominantSpeaker != null) {
-            broadcastMessage(
+            broadcastMessage(new EncodedMessage(
                     EndpointMessageBuilder.createDominantSpeakerEndpointChangeEvent(dominantSpeaker
-                            .getID()));
+                            .getID()), "DominantSpeakerEndpointChangeEvent"), false);
             if (isRecording() && this.recorderEventHandler != null)
                 this.recorderEventHandler.dominantSpeakerChanged(dominantSpeaker);
         }
@@ -280,6 +303,7 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
                 return;
             this.expired = true;
         }
+        this.expireTimer.cancel();
         EventAdmin eventAdmin = getEventAdmin();
         if (eventAdmin != null)
             eventAdmin.sendEvent(EventFactory.conferenceExpired(this));
@@ -380,19 +404,30 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
             if (expireContent)
                 this.contents.remove(content);
         }
-        if (expireContent)
+        if (expireContent) {
             content.expire();
+            this.expireTimer.touch();
+        }
     }
 
     public Channel findChannelByReceiveSSRC(long receiveSSRC, MediaType mediaType) {
-        for (Content content : getContents()) {
-            if (mediaType.equals(content.getMediaType())) {
-                Channel channel = content.findChannelByReceiveSSRC(receiveSSRC);
-                if (channel != null)
-                    return channel;
-            }
-        }
-        return null;
+        Map<Long, RtpChannel> index = this.channelsByReceiveSSRC.get(mediaType);
+        if (index == null)
+            return null;
+        RtpChannel channel = index.get(Long.valueOf(receiveSSRC & 0xFFFFFFFFL));
+        return (channel == null || channel.isExpired()) ? null : channel;
+    }
+
+    void receiveSSRCAdded(RtpChannel channel, long receiveSSRC) {
+        Map<Long, RtpChannel> index = this.channelsByReceiveSSRC.get(channel.getContent().getMediaType());
+        if (index != null)
+            index.put(Long.valueOf(receiveSSRC & 0xFFFFFFFFL), channel);
+    }
+
+    void receiveSSRCRemoved(RtpChannel channel, long receiveSSRC) {
+        Map<Long, RtpChannel> index = this.channelsByReceiveSSRC.get(channel.getContent().getMediaType());
+        if (index != null)
+            index.remove(Long.valueOf(receiveSSRC & 0xFFFFFFFFL), channel);
     }
 
     AbstractEndpoint findEndpointByReceiveSSRC(long receiveSSRC, MediaType mediaType) {
@@ -417,6 +452,7 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
     private AbstractEndpoint getEndpoint(String id, boolean create) {
         AbstractEndpoint endpoint;
         boolean changed;
+        boolean created = false;
         synchronized (this.endpoints) {
             changed = this.endpoints.removeIf(AbstractEndpoint::isExpired);
             endpoint = this.endpoints.stream().filter(e -> e.getID().equals(id)).findFirst().orElse(null);
@@ -425,6 +461,7 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
                 endpoint.addPropertyChangeListener(this.propertyChangeListener);
                 this.endpoints.add(endpoint);
                 changed = true;
+                created = true;
                 EventAdmin eventAdmin = getEventAdmin();
                 if (eventAdmin != null)
                     eventAdmin.sendEvent(
@@ -432,7 +469,12 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
             }
         }
         if (changed)
-            firePropertyChange(ENDPOINTS_PROPERTY_NAME, null, null);
+            endpointsChanged();
+        if (created) {
+            EndpointConnectionStatus endpointConnectionStatus = getEndpointConnectionStatus();
+            if (endpointConnectionStatus != null)
+                endpointConnectionStatus.endpointCreated((Endpoint)endpoint);
+        }
         return endpoint;
     }
 
@@ -461,7 +503,7 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
             copy = new ArrayList<>(this.endpoints);
         }
         if (changed)
-            firePropertyChange(ENDPOINTS_PROPERTY_NAME, null, null);
+            endpointsChanged();
         return copy;
     }
 
@@ -562,6 +604,10 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
         return this.recordingPath;
     }
 
+    public SpeakerOrderedTrackCatalog getTrackCatalog() {
+        return this.trackCatalog;
+    }
+
     public ConferenceSpeechActivity getSpeechActivity() {
         return this.speechActivity;
     }
@@ -645,13 +691,18 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
             removed = this.endpoints.removeIf(AbstractEndpoint::isExpired);
         }
         if (removed)
-            firePropertyChange(ENDPOINTS_PROPERTY_NAME, null, null);
+            endpointsChanged();
     }
 
     public void addEndpoint(AbstractEndpoint endpoint) {
         synchronized (this.endpoints) {
             this.endpoints.add(endpoint);
         }
+        endpointsChanged();
+    }
+
+    private void endpointsChanged() {
+        this.trackCatalog.invalidate();
         firePropertyChange(ENDPOINTS_PROPERTY_NAME, null, null);
     }
 
@@ -663,14 +714,30 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
         }
     }
 
+    public void videoSubscriptionChanged() {
+        OctoEndpoints octoEndpoints = this.octoEndpoints;
+        if (octoEndpoints != null)
+            octoEndpoints.subscriptionChanged();
+    }
+
+    private EndpointConnectionStatus getEndpointConnectionStatus() {
+        BundleContext bundleContext = getBundleContext();
+        return (bundleContext == null) ? null : (EndpointConnectionStatus)ServiceUtils.getService(bundleContext, EndpointConnectionStatus.class);
+    }
+
     void endpointMessageTransportConnected(@NotNull AbstractEndpoint endpoint) {
+        if (endpoint instanceof Endpoint) {
+            EndpointConnectionStatus endpointConnectionStatus = getEndpointConnectionStatus();
+            if (endpointConnectionStatus != null)
+                endpointConnectionStatus.endpointMessageTransportConnected((Endpoint)endpoint);
+        }
         if (!isExpired()) {
             AbstractEndpoint dominantSpeaker = this.speechActivity.getDominantEndpoint();
             if (dominantSpeaker != null)
                 try {
-                    endpoint.sendMessage(
+                    endpoint.sendMessage(new EncodedMessage(
                             EndpointMessageBuilder.createDominantSpeakerEndpointChangeEvent(dominantSpeaker
-                                    .getID()));
+                                    .getID()), "DominantSpeakerEndpointChangeEvent"));
                 } catch (IOException e) {
                     this.logger.error("Failed to send dominant speaker update on data channel to " + endpoint
 
@@ -761,15 +828,24 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
     }
 
     private void speechActivityEndpointsChanged() {
+        long startNanos = System.nanoTime();
+        this.trackCatalog.invalidate();
+        List<RtpChannel> channels = new ArrayList<>();
         for (Content content : getContents()) {
-            if (MediaType.VIDEO.equals(content.getMediaType())) {
-                List<AbstractEndpoint> endpoints = Collections.unmodifiableList(this.speechActivity
-                        .getEndpoints());
-                content.getChannels().stream()
-                        .filter(c -> c instanceof RtpChannel)
-                        .forEach(c -> ((RtpChannel)c).speechActivityEndpointsChanged(endpoints));
-            }
+            if (MediaType.VIDEO.equals(content.getMediaType()))
+                for (Channel c : content.getChannels()) {
+                    if (c instanceof RtpChannel)
+                        channels.add((RtpChannel)c);
+                }
         }
+        if (channels.isEmpty())
+            return;
+        BitrateReallocator.reallocate(channels);
+        long latencyNanos = System.nanoTime() - startNanos;
+        this.statistics.bitrateReallocationLatency.record(latencyNanos);
+        Videobridge.Statistics videobridgeStatistics = getVideobridge().getStatistics();
+        videobridgeStatistics.totalBitrateReallocations.incrementAndGet();
+        videobridgeStatistics.bitrateReallocationLatency.record(latencyNanos);
     }
 
     private void speechActivityPropertyChange(PropertyChangeEvent ev) {
@@ -788,6 +864,7 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
             if (getLastActivityTime() < now)
                 this.lastActivityTime = now;
         }
+        this.expireTimer.touch();
     }
 
     void updateEndpoint(ColibriConferenceIQ.Endpoint colibriEndpoint) {
@@ -870,5 +947,7 @@ public class Conference extends PropertyChangeNotifier implements PropertyChange
         public AtomicLong totalPacketsReceivedOcto = new AtomicLong();
 
         public AtomicLong totalPacketsSentOcto = new AtomicLong();
+
+        public final LatencyHistogram bitrateReallocationLatency = new LatencyHistogram();
     }
 }
\ No newline at end of file
@@ -6,9 +6,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.jitsi.utils.MediaType;
-import org.jitsi.utils.concurrent.ExecutorUtils;
+import org.jitsi.utils.concurrent.ExecutorFactory;
 import org.jitsi.utils.dsi.ActiveSpeakerChangedListener;
 import org.jitsi.utils.dsi.ActiveSpeakerDetector;
 import org.jitsi.utils.dsi.DominantSpeakerIdentification;
@@ -24,7 +25,9 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
     public static final String ENDPOINTS_PROPERTY_NAME = ConferenceSpeechActivity.class
             .getName() + ".endpoints";
 
-    private static final ExecutorService executorService = ExecutorUtils.newCachedThreadPool(true, "ConferenceSpeechActivity");
+    private static final long EVENT_DISPATCH_INTERVAL_MS = 100L;
+
+    private static final ScheduledExecutorService scheduler = ExecutorFactory.createCPUBoundScheduledExecutor("ConferenceSpeechActivity", 60, TimeUnit.SECONDS);
 
     private static final Logger logger = Logger.getLogger(ConferenceSpeechActivity.class);
 
@@ -74,9 +77,11 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
 
     private boolean endpointsChanged = false;
 
-    private EventDispatcher eventDispatcher;
+    private boolean eventDispatchScheduled = false;
+
+    private long eventDispatchTime;
 
-    private long eventDispatcherTime;
+    private final EventDispatcher eventDispatcher = new EventDispatcher(this);
 
     private final PropertyChangeListener propertyChangeListener = (PropertyChangeListener)new WeakReferencePropertyChangeListener(this);
 
@@ -95,20 +100,20 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
 
                         .getID() + " is now the SSRC " + ssrc + ".");
             AbstractEndpoint endpoint = conference.findEndpointByReceiveSSRC(ssrc, MediaType.AUDIO);
-            boolean maybeStartEventDispatcher = false;
+            boolean maybeScheduleEventDispatch = false;
             synchronized (this.syncRoot) {
                 if (endpoint == null) {
-                    maybeStartEventDispatcher = true;
+                    maybeScheduleEventDispatch = true;
                 } else {
                     AbstractEndpoint dominantEndpoint = getDominantEndpoint();
                     if (!endpoint.equals(dominantEndpoint)) {
                         this.dominantEndpoint = endpoint;
-                        maybeStartEventDispatcher = true;
+                        maybeScheduleEventDispatch = true;
                     }
                 }
-                if (maybeStartEventDispatcher) {
+                if (maybeScheduleEventDispatch) {
                     this.dominantEndpointChanged = true;
-                    maybeStartEventDispatcher();
+                    maybeScheduleEventDispatch();
                 }
             }
         }
@@ -144,15 +149,6 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
         return jsonObject;
     }
 
-    private void eventDispatcherExited(EventDispatcher eventDispatcher) {
-        synchronized (this.syncRoot) {
-            if (this.eventDispatcher == eventDispatcher) {
-                this.eventDispatcher = eventDispatcher;
-                this.eventDispatcherTime = 0L;
-            }
-        }
-    }
-
     private ActiveSpeakerDetector getActiveSpeakerDetector() {
         DominantSpeakerIdentification dominantSpeakerIdentification;
         boolean addActiveSpeakerChangedListener = false;
@@ -230,24 +226,19 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
             activeSpeakerDetector.levelChanged(ssrc, level);
     }
 
-    private void maybeStartEventDispatcher() {
+    private void maybeScheduleEventDispatch() {
         synchronized (this.syncRoot) {
-            if (this.eventDispatcher == null) {
-                EventDispatcher eventDispatcher = new EventDispatcher(this);
-                boolean scheduled = false;
-                this.eventDispatcher = eventDispatcher;
-                this.eventDispatcherTime = 0L;
-                try {
-                    executorService.execute(eventDispatcher);
-                    scheduled = true;
-                } finally {
-                    if (!scheduled && this.eventDispatcher == eventDispatcher) {
-                        this.eventDispatcher = null;
-                        this.eventDispatcherTime = 0L;
-                    }
-                }
-            } else {
-                this.syncRoot.notify();
+            if (this.eventDispatchScheduled)
+                return;
+            long delay = this.eventDispatchTime + EVENT_DISPATCH_INTERVAL_MS - System.currentTimeMillis();
+            this.eventDispatchScheduled = true;
+            boolean scheduled = false;
+            try {
+                scheduler.schedule(this.eventDispatcher, Math.max(0L, delay), TimeUnit.MILLISECONDS);
+                scheduled = true;
+            } finally {
+                if (!scheduled)
+                    this.eventDispatchScheduled = false;
             }
         }
     }
@@ -261,32 +252,21 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
             if (conference.equals(ev.getSource()))
                 synchronized (this.syncRoot) {
                     this.endpointsChanged = true;
-                    maybeStartEventDispatcher();
+                    maybeScheduleEventDispatch();
                 }
     }
 
-    private boolean runInEventDispatcher(EventDispatcher eventDispatcher) {
+    private void dispatchEvents() {
         boolean endpointsChanged = false;
         boolean dominantEndpointChanged = false;
         synchronized (this.syncRoot) {
-            if (this.eventDispatcher != eventDispatcher)
-                return false;
+            this.eventDispatchScheduled = false;
             Conference conference = getConference();
             if (conference == null)
-                return false;
-            long now = System.currentTimeMillis();
-            if (!this.dominantEndpointChanged && !this.endpointsChanged) {
-                long wait = 100L - now - this.eventDispatcherTime;
-                if (wait > 0L) {
-                    try {
-                        this.syncRoot.wait(wait);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                    }
-                    return true;
-                }
-            }
-            this.eventDispatcherTime = now;
+                return;
+            if (!this.dominantEndpointChanged && !this.endpointsChanged)
+                return;
+            this.eventDispatchTime = System.currentTimeMillis();
             List<AbstractEndpoint> conferenceEndpoints = conference.getEndpoints();
             if (this.endpoints == null) {
                 this.endpoints = new ArrayList<>(conferenceEndpoints);
@@ -312,7 +292,6 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
             firePropertyChange(ENDPOINTS_PROPERTY_NAME, null, null);
         if (dominantEndpointChanged)
             firePropertyChange(DOMINANT_ENDPOINT_PROPERTY_NAME, null, null);
-        return true;
     }
 
     private static class EventDispatcher implements Runnable {
@@ -323,15 +302,15 @@ public class ConferenceSpeechActivity extends PropertyChangeNotifier implements
         }
 
         public void run() {
+            ConferenceSpeechActivity owner = this.owner.get();
+            if (owner == null)
+                return;
             try {
-                ConferenceSpeechActivity owner;
-                do {
-                    owner = this.owner.get();
-                } while (owner != null && owner.runInEventDispatcher(this));
-            } finally {
-                ConferenceSpeechActivity owner = this.owner.get();
-                if (owner != null)
-                    owner.eventDispatcherExited(this);
+                owner.dispatchEvents();
+            } catch (Throwable t) {
+                logger.error("Failed to dispatch conference speech activity events.", t);
+                if (t instanceof ThreadDeath)
+                    throw (ThreadDeath)t;
             }
         }
     }
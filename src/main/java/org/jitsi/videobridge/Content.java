@@ -2,7 +2,10 @@ package org.jitsi.videobridge;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -21,8 +24,10 @@ import org.jitsi.utils.MediaType;
 import org.jitsi.utils.event.PropertyChangeNotifier;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.octo.OctoChannel;
+import org.jitsi.videobridge.util.ExpireTimingWheel;
 import org.jitsi.videobridge.util.Expireable;
 import org.jitsi.videobridge.util.ExpireableImpl;
+import org.jitsi.videobridge.util.SsrcSubscriptionTable;
 import org.jitsi.xmpp.extensions.colibri.RTPLevelRelayType;
 import org.osgi.framework.BundleContext;
 
@@ -71,6 +76,16 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
 
     private final ExpireableImpl expireableImpl;
 
+    private final ExpireTimingWheel.Timer expireTimer;
+
+    private final Object forwardingSyncRoot = new Object();
+
+    private volatile Map<MediaStream, RtpChannel> channelsByStream = Collections.emptyMap();
+
+    private final BitSet forwardingIndices = new BitSet();
+
+    private final SsrcSubscriptionTable subscriptionTable = new SsrcSubscriptionTable();
+
     public Content(Conference conference, String name) {
         this.conference = Objects.<Conference>requireNonNull(conference, "conference");
         this.name = Objects.<String>requireNonNull(name, "name");
@@ -78,6 +93,8 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
         this.logger = Logger.getLogger(classLogger, conference.getLogger());
         this.mediaType = MediaType.parseString(this.name);
         this.expireableImpl = new ExpireableImpl(getLoggingId(), this::expire);
+        this.expireTimer = conference.getVideobridge().getExpireThread()
+                .schedule(this, () -> getLastActivityTime() + 60000L);
         EventAdmin eventAdmin = conference.getEventAdmin();
         if (eventAdmin != null)
             eventAdmin.sendEvent(EventFactory.contentCreated(this));
@@ -85,15 +102,46 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
     }
 
     public boolean accept(MediaStream source, RawPacket pkt, MediaStream destination, boolean data) {
-        boolean accept = true;
-        if (destination != null) {
-            RtpChannel dst = RtpChannel.getChannel(destination);
-            if (dst != null) {
-                RtpChannel src = (source == null) ? null : RtpChannel.getChannel(source);
-                accept = dst.rtpTranslatorWillWrite(data, pkt, src);
+        if (destination == null)
+            return true;
+        Map<MediaStream, RtpChannel> channelsByStream = this.channelsByStream;
+        RtpChannel dst = channelsByStream.get(destination);
+        if (dst == null)
+            return true;
+        if (data && dst instanceof VideoChannel &&
+                !this.subscriptionTable.isSubscribed(pkt.getSSRCAsLong(), dst.getForwardingIndex()))
+            return false;
+        RtpChannel src = (source == null) ? null : channelsByStream.get(source);
+        return dst.rtpTranslatorWillWrite(data, pkt, src);
+    }
+
+    public SsrcSubscriptionTable getSubscriptionTable() {
+        return this.subscriptionTable;
+    }
+
+    int streamCreated(RtpChannel channel, MediaStream stream) {
+        synchronized (this.forwardingSyncRoot) {
+            int forwardingIndex = this.forwardingIndices.nextClearBit(0);
+            this.forwardingIndices.set(forwardingIndex);
+            Map<MediaStream, RtpChannel> channelsByStream = new IdentityHashMap<>(this.channelsByStream);
+            channelsByStream.put(stream, channel);
+            this.channelsByStream = channelsByStream;
+            return forwardingIndex;
+        }
+    }
+
+    void streamClosed(RtpChannel channel, MediaStream stream, int forwardingIndex) {
+        synchronized (this.forwardingSyncRoot) {
+            if (this.channelsByStream.get(stream) == channel) {
+                Map<MediaStream, RtpChannel> channelsByStream = new IdentityHashMap<>(this.channelsByStream);
+                channelsByStream.remove(stream);
+                this.channelsByStream = channelsByStream;
+            }
+            if (forwardingIndex > -1) {
+                this.subscriptionTable.clear(forwardingIndex);
+                this.forwardingIndices.clear(forwardingIndex);
             }
         }
-        return accept;
     }
 
     public RtpChannel createRtpChannel(String channelBundleId, String transportNamespace, Boolean initiator, RTPLevelRelayType rtpLevelRelayType) throws Exception {
@@ -166,6 +214,7 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
                 return;
             this.expired = true;
         }
+        this.expireTimer.cancel();
         setRecording(false, null);
         Conference conference = getConference();
         EventAdmin eventAdmin = conference.getEventAdmin();
@@ -204,8 +253,10 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
                 expireChannel = false;
             }
         }
-        if (expireChannel)
+        if (expireChannel) {
             channel.expire();
+            this.expireTimer.touch();
+        }
     }
 
     @Deprecated
@@ -227,19 +278,6 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
         }
     }
 
-    Channel findChannelByReceiveSSRC(long receiveSSRC) {
-        for (Channel channel : getChannels()) {
-            if (!(channel instanceof RtpChannel))
-                continue;
-            RtpChannel rtpChannel = (RtpChannel)channel;
-            for (int channelReceiveSSRC : rtpChannel.getReceiveSSRCs()) {
-                if (receiveSSRC == (0xFFFFFFFFL & channelReceiveSSRC))
-                    return channel;
-            }
-        }
-        return null;
-    }
-
     private String generateChannelID() {
         return
                 Long.toHexString(
@@ -403,6 +441,7 @@ public class Content extends PropertyChangeNotifier implements RTPTranslator.Wri
             if (getLastActivityTime() < now)
                 this.lastActivityTime = now;
         }
+        this.expireTimer.touch();
     }
 
     public void fireChannelChanged(RtpChannel channel) {
@@ -0,0 +1,75 @@
+package org.jitsi.videobridge;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+
+public class EncodedMessage {
+    private final String message;
+
+    private final byte[] bytes;
+
+    private final String colibriClass;
+
+    private final String subject;
+
+    private volatile JSONObject jsonObject;
+
+    private volatile boolean parsed = false;
+
+    public EncodedMessage(String message) {
+        this(message, null, null);
+    }
+
+    public EncodedMessage(String message, String colibriClass) {
+        this(message, colibriClass, null);
+    }
+
+    public EncodedMessage(String message, String colibriClass, String subject) {
+        this.message = Objects.<String>requireNonNull(message, "message");
+        this.bytes = message.getBytes(StandardCharsets.UTF_8);
+        this.colibriClass = colibriClass;
+        this.subject = subject;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+
+    public byte[] getBytes() {
+        return this.bytes;
+    }
+
+    public int getLength() {
+        return this.bytes.length;
+    }
+
+    public JSONObject getJSONObject() {
+        if (!this.parsed) {
+            JSONObject jsonObject = null;
+            try {
+                Object obj = (new JSONParser()).parse(this.message);
+                if (obj instanceof JSONObject)
+                    jsonObject = (JSONObject)obj;
+            } catch (ParseException parseException) {}
+            this.jsonObject = jsonObject;
+            this.parsed = true;
+        }
+        return this.jsonObject;
+    }
+
+    public String getColibriClass() {
+        return this.colibriClass;
+    }
+
+    public String getSubject() {
+        return this.subject;
+    }
+
+    public String toString() {
+        return this.message;
+    }
+}
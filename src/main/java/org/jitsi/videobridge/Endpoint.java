@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import org.jitsi.util.concurrent.MonotonicAtomicLong;
 import org.jitsi.utils.MediaType;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.rest.ColibriWebSocket;
@@ -31,6 +32,10 @@ public class Endpoint extends AbstractEndpoint {
 
     private AtomicInteger selectedCount = new AtomicInteger(0);
 
+    private final MonotonicAtomicLong lastTransportActivityTime = new MonotonicAtomicLong();
+
+    private final MonotonicAtomicLong lastChannelCreationTime = new MonotonicAtomicLong();
+
     public Endpoint(String id, Conference conference) {
         super(conference, id);
         this.messageTransport = new EndpointMessageTransport(this);
@@ -45,6 +50,23 @@ public class Endpoint extends AbstractEndpoint {
         return getMessageTransport().getSctpConnection();
     }
 
+    public long getLastTransportActivityTime() {
+        return this.lastTransportActivityTime.get();
+    }
+
+    public long getLastChannelCreationTime() {
+        return this.lastChannelCreationTime.get();
+    }
+
+    void channelAttached(Channel channel) {
+        this.lastChannelCreationTime.increase(channel.getCreationTimestamp());
+        this.lastTransportActivityTime.increase(channel.getLastTransportActivityTime());
+    }
+
+    void transportActivity(long now) {
+        this.lastTransportActivityTime.increase(now);
+    }
+
     public Set<String> getSelectedEndpoints() {
         return this.selectedEndpoints;
     }
@@ -81,6 +103,12 @@ public class Endpoint extends AbstractEndpoint {
             messageTransport.sendMessage(msg);
     }
 
+    public void sendMessage(EncodedMessage msg) throws IOException {
+        EndpointMessageTransport messageTransport = getMessageTransport();
+        if (messageTransport != null)
+            messageTransport.sendMessage(msg);
+    }
+
     protected void maybeExpire() {
         if (getSctpConnection() == null && getChannelCount((MediaType)null) == 0)
             expire();
@@ -152,7 +180,7 @@ public class Endpoint extends AbstractEndpoint {
             if (this.logger.isDebugEnabled())
                 this.logger.debug("Endpoint " + getID() + " is now selected, sending message: " + selectedUpdate);
             try {
-                sendMessage(selectedUpdate);
+                sendMessage(new EncodedMessage(selectedUpdate, "SelectedUpdateEvent"));
             } catch (IOException e) {
                 this.logger.error("Error sending SelectedUpdate message: " + e);
             }
@@ -166,7 +194,7 @@ public class Endpoint extends AbstractEndpoint {
             if (this.logger.isDebugEnabled())
                 this.logger.debug("Endpoint " + getID() + " is no longer selected, sending message: " + selectedUpdate);
             try {
-                sendMessage(selectedUpdate);
+                sendMessage(new EncodedMessage(selectedUpdate, "SelectedUpdateEvent"));
             } catch (IOException e) {
                 this.logger.error("Error sending SelectedUpdate message: " + e);
             }
@@ -1,20 +1,22 @@
 package org.jitsi.videobridge;
 
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import net.java.sip.communicator.util.Logger;
 import net.java.sip.communicator.util.ServiceUtils;
-import org.jitsi.eventadmin.Event;
-import org.jitsi.osgi.EventHandlerActivator;
 import org.jitsi.service.configuration.ConfigurationService;
+import org.jitsi.utils.concurrent.ExecutorFactory;
+import org.osgi.framework.BundleActivator;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
-public class EndpointConnectionStatus extends EventHandlerActivator {
+public class EndpointConnectionStatus implements BundleActivator {
     private static final String CFG_PNAME_BASE = "org.jitsi.videobridge.EndpointConnectionStatus";
 
     public static final String CFG_PNAME_FIRST_TRANSFER_TIMEOUT = "org.jitsi.videobridge.EndpointConnectionStatus.FIRST_TRANSFER_TIMEOUT";
@@ -35,23 +37,18 @@ public class EndpointConnectionStatus extends EventHandlerActivator {
 
     private BundleContext bundleContext;
 
-    private List<Endpoint> inactiveEndpoints = new LinkedList<>();
+    private final Set<Endpoint> inactiveEndpoints = ConcurrentHashMap.newKeySet();
 
-    private Timer timer;
+    private final Map<Endpoint, EndpointMonitor> monitors = new ConcurrentHashMap<>();
 
-    public EndpointConnectionStatus() {
-        super(new String[] { "org/jitsi/videobridge/Endpoint/MSG_TRANSPORT_READY_TOPIC" });
-    }
+    private ScheduledExecutorService scheduler;
+
+    private ServiceRegistration<EndpointConnectionStatus> serviceRegistration;
 
     public void start(BundleContext bundleContext) throws Exception {
         this.bundleContext = bundleContext;
-        if (this.timer == null) {
-            this.timer = new Timer("EndpointConnectionStatusMonitoring", true);
-            this.timer.schedule(new TimerTask() {
-                public void run() {
-                    EndpointConnectionStatus.this.doMonitor();
-                }
-            },  500L, 500L);
+        if (this.scheduler == null) {
+            this.scheduler = ExecutorFactory.createSingleThreadScheduledExecutor("EndpointConnectionStatusMonitoring", 60, TimeUnit.SECONDS);
         } else {
             logger.error("Endpoint connection monitoring is already running");
         }
@@ -61,86 +58,83 @@ public class EndpointConnectionStatus extends EventHandlerActivator {
         if (this.firstTransferTimeout <= this.maxInactivityLimit)
             throw new IllegalArgumentException(
                     String.format("FIRST_TRANSFER_TIMEOUT(%s) must be greater than MAX_INACTIVITY_LIMIT(%s)", new Object[] { Long.valueOf(this.firstTransferTimeout), Long.valueOf(this.maxInactivityLimit) }));
-        super.start(bundleContext);
+        this.serviceRegistration = bundleContext.registerService(EndpointConnectionStatus.class, this, null);
     }
 
     public void stop(BundleContext bundleContext) throws Exception {
-        super.stop(bundleContext);
-        if (this.timer != null) {
-            this.timer.cancel();
-            this.timer = null;
+        if (this.serviceRegistration != null) {
+            this.serviceRegistration.unregister();
+            this.serviceRegistration = null;
         }
+        if (this.scheduler != null) {
+            this.scheduler.shutdownNow();
+            this.scheduler = null;
+        }
+        this.monitors.clear();
         this.inactiveEndpoints.clear();
         this.bundleContext = null;
     }
 
-    private void doMonitor() {
-        BundleContext bundleContext = this.bundleContext;
-        if (bundleContext != null) {
-            Collection<Videobridge> jvbs = Videobridge.getVideobridges(bundleContext);
-            for (Videobridge videobridge : jvbs) {
-                cleanupExpiredEndpointsStatus();
-                Conference[] conferences = videobridge.getConferences();
-                Arrays.<Conference>stream(conferences)
-                        .forEachOrdered(conference -> conference.getEndpoints().forEach(this::monitorEndpointActivity));
-            }
-        }
+    private void startMonitoring(Endpoint endpoint) {
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler == null || endpoint.isExpired())
+            return;
+        EndpointMonitor monitor = new EndpointMonitor(endpoint);
+        if (this.monitors.putIfAbsent(endpoint, monitor) == null)
+            monitor.schedule(scheduler, this.maxInactivityLimit + 1L);
     }
 
-    private void monitorEndpointActivity(AbstractEndpoint abstractEndpoint) {
-        if (!(abstractEndpoint instanceof Endpoint))
-            return;
-        Endpoint endpoint = (Endpoint)abstractEndpoint;
+    private long monitorEndpointActivity(Endpoint endpoint) {
         String endpointId = endpoint.getID();
-        List<RtpChannel> rtpChannels = endpoint.getChannels();
-        long lastActivity = rtpChannels.stream().mapToLong(Channel::getLastTransportActivityTime).max().orElse(0L);
-        long mostRecentChannelCreated = rtpChannels.stream().mapToLong(Channel::getCreationTimestamp).max().orElse(0L);
-        SctpConnection sctpConnection = endpoint.getSctpConnection();
-        if (sctpConnection != null) {
-            long lastSctpActivity = sctpConnection.getLastTransportActivityTime();
-            if (lastSctpActivity > lastActivity)
-                lastActivity = lastSctpActivity;
-            long creationTimestamp = sctpConnection.getCreationTimestamp();
-            if (creationTimestamp > mostRecentChannelCreated)
-                mostRecentChannelCreated = creationTimestamp;
+        long now = System.currentTimeMillis();
+        if (endpoint.isExpired()) {
+            if (this.inactiveEndpoints.remove(endpoint))
+                endpointExpiredWhileInactive(endpoint);
+            return -1L;
         }
-        if (lastActivity == 0L)
-            if (System.currentTimeMillis() - mostRecentChannelCreated > this.firstTransferTimeout) {
+        long lastActivity = endpoint.getLastTransportActivityTime();
+        if (lastActivity == 0L) {
+            long mostRecentChannelCreated = endpoint.getLastChannelCreationTime();
+            long firstTransferDeadline = mostRecentChannelCreated + this.firstTransferTimeout;
+            if (now > firstTransferDeadline) {
                 if (logger.isDebugEnabled())
                     logger.debug(endpointId + " is having trouble establishing the connection and will be marked as inactive");
                 lastActivity = mostRecentChannelCreated;
             } else {
                 if (logger.isDebugEnabled())
                     logger.debug(endpointId + " not ready for activity checks yet");
-                return;
+                return firstTransferDeadline - now + 1L;
             }
-        long noActivityForMs = System.currentTimeMillis() - lastActivity;
+        }
+        long noActivityForMs = now - lastActivity;
         boolean inactive = (noActivityForMs > this.maxInactivityLimit);
-        if (inactive && !this.inactiveEndpoints.contains(endpoint)) {
+        if (inactive && this.inactiveEndpoints.add(endpoint)) {
             logger.debug(endpointId + " is considered disconnected");
-            this.inactiveEndpoints.add(endpoint);
             sendEndpointConnectionStatus(endpoint, false, null);
-        } else if (!inactive && this.inactiveEndpoints.contains(endpoint)) {
+        } else if (!inactive && this.inactiveEndpoints.remove(endpoint)) {
             logger.debug(endpointId + " has reconnected");
-            this.inactiveEndpoints.remove(endpoint);
             sendEndpointConnectionStatus(endpoint, true, null);
         }
-        if (inactive && logger.isDebugEnabled())
-            logger.debug(String.format("No activity on %s for %s", new Object[] { endpointId,
+        if (inactive) {
+            if (logger.isDebugEnabled())
+                logger.debug(String.format("No activity on %s for %s", new Object[] { endpointId,
 
-                    Double.valueOf(noActivityForMs / 1000.0D) }));
+                        Double.valueOf(noActivityForMs / 1000.0D) }));
+            return PROBE_INTERVAL;
+        }
+        return this.maxInactivityLimit - noActivityForMs + 1L;
     }
 
     private void sendEndpointConnectionStatus(Endpoint subjectEndpoint, boolean isConnected, Endpoint msgReceiver) {
         Conference conference = subjectEndpoint.getConference();
         if (conference != null) {
-            String msg = EndpointMessageBuilder.createEndpointConnectivityStatusChangeEvent(subjectEndpoint
-                    .getID(), isConnected);
+            EncodedMessage msg = new EncodedMessage(EndpointMessageBuilder.createEndpointConnectivityStatusChangeEvent(subjectEndpoint
+                    .getID(), isConnected), "EndpointConnectivityStatusChangeEvent", subjectEndpoint.getID());
             if (msgReceiver == null) {
                 conference.broadcastMessage(msg, true);
             } else {
                 List<AbstractEndpoint> receivers = Collections.singletonList(msgReceiver);
-                conference.sendMessage(msg, receivers);
+                conference.sendMessage(msg, receivers, false);
             }
         } else {
             logger.warn("Attempt to send connectivity status update for endpoint " + subjectEndpoint
@@ -149,38 +143,58 @@ public class EndpointConnectionStatus extends EventHandlerActivator {
         }
     }
 
-    private void cleanupExpiredEndpointsStatus() {
-        this.inactiveEndpoints.removeIf(e -> {
-            Conference conference = e.getConference();
-            AbstractEndpoint replacement = conference.getEndpoint(e.getID());
-            boolean endpointReplaced = (replacement != null && replacement != e);
-            if (endpointReplaced)
-                if (replacement instanceof Endpoint)
-                    sendEndpointConnectionStatus((Endpoint)replacement, true, null);
-            return (conference.isExpired() || endpointReplaced);
-        });
-        if (logger.isDebugEnabled())
-            this.inactiveEndpoints.stream()
-                    .filter(AbstractEndpoint::isExpired)
-                    .forEach(e -> logger.debug("Endpoint has expired: " + e.getID() + ", but is still on the list"));
+    private void endpointExpiredWhileInactive(Endpoint endpoint) {
+        Conference conference = endpoint.getConference();
+        if (conference.isExpired())
+            return;
+        AbstractEndpoint replacement = conference.getEndpoint(endpoint.getID());
+        if (replacement != null && replacement != endpoint && replacement instanceof Endpoint)
+            sendEndpointConnectionStatus((Endpoint)replacement, true, null);
     }
 
-    public void handleEvent(Event event) {
-        String topic = event.getTopic();
-        if (!"org/jitsi/videobridge/Endpoint/MSG_TRANSPORT_READY_TOPIC".equals(topic)) {
-            logger.warn("Received event for unexpected topic: " + topic);
-            return;
-        }
-        Endpoint endpoint = (Endpoint)event.getProperty("event.source");
-        if (endpoint == null) {
-            logger.error("Endpoint is null");
-            return;
-        }
+    void endpointCreated(Endpoint endpoint) {
+        startMonitoring(endpoint);
+    }
+
+    void endpointMessageTransportConnected(Endpoint endpoint) {
         Conference conference = endpoint.getConference();
         if (conference == null || conference.isExpired())
             return;
+        startMonitoring(endpoint);
         this.inactiveEndpoints.stream()
                 .filter(e -> (e.getConference() == conference))
                 .forEach(e -> sendEndpointConnectionStatus(e, false, endpoint));
     }
+
+    private class EndpointMonitor implements Runnable {
+        private final Endpoint endpoint;
+
+        private EndpointMonitor(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private void schedule(ScheduledExecutorService scheduler, long delayMs) {
+            try {
+                scheduler.schedule(this, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                EndpointConnectionStatus.this.monitors.remove(this.endpoint, this);
+            }
+        }
+
+        public void run() {
+            long delayMs;
+            try {
+                delayMs = EndpointConnectionStatus.this.monitorEndpointActivity(this.endpoint);
+            } catch (Exception e) {
+                logger.error("Failed to check the activity of " + this.endpoint.getID(), e);
+                delayMs = PROBE_INTERVAL;
+            }
+            ScheduledExecutorService scheduler = EndpointConnectionStatus.this.scheduler;
+            if (delayMs < 0L || scheduler == null) {
+                EndpointConnectionStatus.this.monitors.remove(this.endpoint, this);
+            } else {
+                schedule(scheduler, delayMs);
+            }
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package org.jitsi.videobridge;
 
 import java.util.Collection;
+import java.util.Map;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONValue;
@@ -18,6 +19,8 @@ public class EndpointMessageBuilder {
 
     public static final String COLIBRI_CLASS_LASTN_ENDPOINTS_CHANGED = "LastNEndpointsChangeEvent";
 
+    public static final String COLIBRI_CLASS_OCTO_SUBSCRIPTION_CHANGED = "OctoSubscriptionChangedEvent";
+
     public static final String COLIBRI_CLASS_PINNED_ENDPOINT_CHANGED = "PinnedEndpointChangedEvent";
 
     public static final String COLIBRI_CLASS_PINNED_ENDPOINTS_CHANGED = "PinnedEndpointsChangedEvent";
@@ -61,6 +64,18 @@ public class EndpointMessageBuilder {
         return msg.toString();
     }
 
+    public static String createOctoSubscriptionChangedEvent(Map<String, Integer> maxEncodingIndices) {
+        JSONObject indices = new JSONObject();
+        indices.putAll(maxEncodingIndices);
+        StringBuilder msg = new StringBuilder("{\"colibriClass\":\"OctoSubscriptionChangedEvent\"");
+        msg.append(",\"endpoints\":");
+        msg.append(getJsonString(maxEncodingIndices.keySet()));
+        msg.append(",\"maxEncodingIndices\":");
+        msg.append(indices.toJSONString());
+        msg.append('}');
+        return msg.toString();
+    }
+
     public static String createSelectedUpdateMessage(boolean isSelected) {
         JSONObject selectedUpdate = new JSONObject();
         selectedUpdate.put("colibriClass", "SelectedUpdateEvent");
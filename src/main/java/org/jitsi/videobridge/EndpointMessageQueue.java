@@ -0,0 +1,97 @@
+package org.jitsi.videobridge;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.json.simple.JSONObject;
+
+class EndpointMessageQueue {
+    private final Map<Object, EncodedMessage> control = new LinkedHashMap<>();
+
+    private final Map<Object, EncodedMessage> informational = new LinkedHashMap<>();
+
+    synchronized boolean add(EncodedMessage msg) {
+        boolean wasEmpty = (this.control.isEmpty() && this.informational.isEmpty());
+        String colibriClass = msg.getColibriClass();
+        Map<Object, EncodedMessage> queue = isInformational(colibriClass) ? this.informational : this.control;
+        Object key = getCoalescingKey(colibriClass, msg.getSubject());
+        EncodedMessage older = queue.get(key);
+        if (older == null) {
+            queue.put(key, msg);
+        } else {
+            queue.put(key, merge(colibriClass, older, msg));
+        }
+        return wasEmpty;
+    }
+
+    synchronized List<EncodedMessage> drain() {
+        if (this.control.isEmpty() && this.informational.isEmpty())
+            return Collections.emptyList();
+        List<EncodedMessage> messages = new ArrayList<>(this.control.size() + this.informational.size());
+        messages.addAll(this.control.values());
+        messages.addAll(this.informational.values());
+        this.control.clear();
+        this.informational.clear();
+        return messages;
+    }
+
+    synchronized void clear() {
+        this.control.clear();
+        this.informational.clear();
+    }
+
+    private static boolean isInformational(String colibriClass) {
+        return ("DominantSpeakerEndpointChangeEvent".equals(colibriClass) || "EndpointMessage"
+                .equals(colibriClass));
+    }
+
+    private static Object getCoalescingKey(String colibriClass, String subject) {
+        if (colibriClass == null)
+            return new Object();
+        switch (colibriClass) {
+            case "DominantSpeakerEndpointChangeEvent":
+            case "LastNEndpointsChangeEvent":
+            case "SelectedUpdateEvent":
+                return colibriClass;
+            case "EndpointConnectivityStatusChangeEvent":
+                if (subject != null)
+                    return colibriClass + "/" + subject;
+                break;
+        }
+        return new Object();
+    }
+
+    private static EncodedMessage merge(String colibriClass, EncodedMessage older, EncodedMessage newer) {
+        if (!"LastNEndpointsChangeEvent".equals(colibriClass))
+            return newer;
+        JSONObject olderJson = older.getJSONObject();
+        JSONObject newerJson = newer.getJSONObject();
+        if (olderJson == null || newerJson == null)
+            return newer;
+        Collection<String> lastNEndpoints = getStrings(newerJson.get("lastNEndpoints"));
+        Set<String> endpointsEnteringLastN = new LinkedHashSet<>(getStrings(olderJson.get("endpointsEnteringLastN")));
+        endpointsEnteringLastN.addAll(getStrings(newerJson.get("endpointsEnteringLastN")));
+        endpointsEnteringLastN.retainAll(lastNEndpoints);
+        if (endpointsEnteringLastN.size() == getStrings(newerJson.get("endpointsEnteringLastN")).size())
+            return newer;
+        return new EncodedMessage(EndpointMessageBuilder.createLastNEndpointsChangeEvent(lastNEndpoints, endpointsEnteringLastN,
+                getStrings(newerJson.get("conferenceEndpoints"))), "LastNEndpointsChangeEvent");
+    }
+
+    private static Collection<String> getStrings(Object o) {
+        if (!(o instanceof Collection))
+            return Collections.emptyList();
+        List<String> strings = new ArrayList<>();
+        for (Object s : (Collection<?>)o) {
+            if (s instanceof String)
+                strings.add((String)s);
+        }
+        return strings;
+    }
+}
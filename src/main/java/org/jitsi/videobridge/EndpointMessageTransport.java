@@ -6,15 +6,34 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.jitsi.eventadmin.EventAdmin;
+import org.jitsi.service.configuration.ConfigurationService;
+import org.jitsi.service.libjitsi.LibJitsi;
+import org.jitsi.utils.concurrent.ExecutorFactory;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.rest.ColibriWebSocket;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 class EndpointMessageTransport extends AbstractEndpointMessageTransport implements WebRtcDataStream.DataCallback {
+    public static final String MESSAGE_FLUSH_INTERVAL_PNAME = "org.jitsi.videobridge.MESSAGE_FLUSH_INTERVAL_MS";
+
+    private static final long MESSAGE_FLUSH_INTERVAL_DEFAULT = 20L;
+
+    private static final long MESSAGE_FLUSH_INTERVAL;
+
+    private static final ScheduledExecutorService flushScheduler = ExecutorFactory.createCPUBoundScheduledExecutor("EndpointMessageFlusher", 60, TimeUnit.SECONDS);
+
     private static final Logger classLogger = Logger.getLogger(EndpointMessageTransport.class);
 
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+        MESSAGE_FLUSH_INTERVAL = (cfg == null) ? MESSAGE_FLUSH_INTERVAL_DEFAULT : cfg.getLong(MESSAGE_FLUSH_INTERVAL_PNAME, MESSAGE_FLUSH_INTERVAL_DEFAULT);
+    }
+
     private final Endpoint endpoint;
 
     private final Logger logger;
@@ -29,6 +48,12 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
 
     private WebRtcDataStream writableWebRtcDataStream;
 
+    private final EndpointMessageQueue outboundQueue = new EndpointMessageQueue();
+
+    private final Object flushSyncRoot = new Object();
+
+    private volatile boolean closed = false;
+
     private final WebRtcDataStreamListener webRtcDataStreamListener = new WebRtcDataStreamListener() {
         public void onChannelOpened(SctpConnection source, WebRtcDataStream channel) {
             SctpConnection currentConnection = EndpointMessageTransport.this.getSctpConnection();
@@ -70,14 +95,14 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
     }
 
     protected void onClientHello(Object src, JSONObject jsonObject) {
-        sendMessage(src, EndpointMessageBuilder.createServerHelloEvent(), "response to ClientHello");
+        sendMessage(src, new EncodedMessage(EndpointMessageBuilder.createServerHelloEvent()), "response to ClientHello");
     }
 
-    private void sendMessage(Object dst, String message) {
+    private void sendMessage(Object dst, EncodedMessage message) {
         sendMessage(dst, message, "");
     }
 
-    private void sendMessage(Object dst, String message, String errorMessage) {
+    private void sendMessage(Object dst, EncodedMessage message, String errorMessage) {
         if (dst instanceof WebRtcDataStream) {
             sendMessage((WebRtcDataStream)dst, message, errorMessage);
         } else if (dst instanceof ColibriWebSocket) {
@@ -87,7 +112,7 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
         }
     }
 
-    private void sendMessage(WebRtcDataStream dst, String message, String errorMessage) {
+    private void sendMessage(WebRtcDataStream dst, EncodedMessage message, String errorMessage) {
         try {
             dst.sendString(message);
             (this.endpoint.getConference().getVideobridge().getStatistics()).totalDataChannelMessagesSent
@@ -99,8 +124,8 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
         }
     }
 
-    private void sendMessage(ColibriWebSocket dst, String message, String errorMessage) {
-        dst.getRemote().sendStringByFuture(message);
+    private void sendMessage(ColibriWebSocket dst, EncodedMessage message, String errorMessage) {
+        dst.sendString(message);
         (this.endpoint.getConference().getVideobridge().getStatistics()).totalColibriWebSocketMessagesSent
                 .incrementAndGet();
     }
@@ -163,6 +188,36 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
     }
 
     protected void sendMessage(String msg) throws IOException {
+        sendMessage(new EncodedMessage(msg));
+    }
+
+    protected void sendMessage(EncodedMessage msg) throws IOException {
+        if (this.closed)
+            return;
+        if (MESSAGE_FLUSH_INTERVAL <= 0L) {
+            sendNow(msg);
+            return;
+        }
+        if (this.outboundQueue.add(msg))
+            try {
+                flushScheduler.schedule(this::flush, MESSAGE_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException ree) {
+                this.logger.warn("Failed to schedule a message flush: " + ree);
+                flush();
+            }
+    }
+
+    private void flush() {
+        synchronized (this.flushSyncRoot) {
+            for (EncodedMessage msg : this.outboundQueue.drain()) {
+                if (this.closed)
+                    return;
+                sendNow(msg);
+            }
+        }
+    }
+
+    private void sendNow(EncodedMessage msg) {
         Object dst = getActiveTransportChannel();
         if (dst == null) {
             this.logger.warn("No available transport channel, can't send a message");
@@ -197,7 +252,7 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
                 this.webSocket.getSession().close(200, "replaced");
             this.webSocket = ws;
             this.webSocketLastActive = true;
-            sendMessage(ws, EndpointMessageBuilder.createServerHelloEvent(), "initial ServerHello");
+            sendMessage(ws, new EncodedMessage(EndpointMessageBuilder.createServerHelloEvent()), "initial ServerHello");
         }
         notifyTransportChannelConnected();
     }
@@ -215,6 +270,8 @@ class EndpointMessageTransport extends AbstractEndpointMessageTransport implemen
     }
 
     protected void close() {
+        this.closed = true;
+        this.outboundQueue.clear();
         synchronized (this.webSocketSyncRoot) {
             if (this.webSocket != null) {
                 this.webSocket.getSession().close(410, "replaced");
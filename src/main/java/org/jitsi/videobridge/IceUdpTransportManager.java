@@ -53,6 +53,7 @@ import org.jitsi.utils.StringUtils;
 import org.jitsi.utils.logging.DiagnosticContext;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.health.Health;
+import org.jitsi.videobridge.ice.NioSinglePortUdpHarvester;
 import org.jitsi.videobridge.rest.ColibriWebSocketService;
 import org.jitsi.xmpp.extensions.colibri.WebSocketPacketExtension;
 import org.jitsi.xmpp.extensions.jingle.CandidatePacketExtension;
@@ -70,6 +71,10 @@ public class IceUdpTransportManager extends TransportManager {
 
     public static final String SINGLE_PORT_HARVESTER_PORT = "org.jitsi.videobridge.SINGLE_PORT_HARVESTER_PORT";
 
+    public static final String SINGLE_PORT_HARVESTER_NIO_PNAME = "org.jitsi.videobridge.SINGLE_PORT_HARVESTER_NIO";
+
+    public static final String SINGLE_PORT_HARVESTER_SHARDS_PNAME = "org.jitsi.videobridge.SINGLE_PORT_HARVESTER_SHARDS";
+
     public static final String KEEP_ALIVE_STRATEGY_PNAME = "org.jitsi.videobridge.KEEP_ALIVE_STRATEGY";
 
     private static KeepAliveStrategy keepAliveStrategy = KeepAliveStrategy.SELECTED_AND_TCP;
@@ -98,6 +103,8 @@ public class IceUdpTransportManager extends TransportManager {
 
     private static List<SinglePortUdpHarvester> singlePortHarvesters = null;
 
+    private static List<NioSinglePortUdpHarvester> nioSinglePortHarvesters = null;
+
     public static boolean healthy = true;
 
     private static boolean staticConfigurationInitialized = false;
@@ -125,12 +132,24 @@ public class IceUdpTransportManager extends TransportManager {
             }
             int singlePort = cfg.getInt("org.jitsi.videobridge.SINGLE_PORT_HARVESTER_PORT", 10000);
             if (singlePort != -1) {
-                singlePortHarvesters = SinglePortUdpHarvester.createHarvesters(singlePort);
-                if (singlePortHarvesters.isEmpty()) {
-                    singlePortHarvesters = null;
-                    classLogger.info("No single-port harvesters created.");
+                int shards = cfg.getInt("org.jitsi.videobridge.SINGLE_PORT_HARVESTER_SHARDS", 1);
+                if (shards <= 0)
+                    shards = Runtime.getRuntime().availableProcessors();
+                if (shards > 1 || cfg.getBoolean("org.jitsi.videobridge.SINGLE_PORT_HARVESTER_NIO", false)) {
+                    nioSinglePortHarvesters = NioSinglePortUdpHarvester.createHarvesters(singlePort, shards);
+                    if (nioSinglePortHarvesters.isEmpty()) {
+                        nioSinglePortHarvesters = null;
+                        classLogger.info("No NIO single-port harvesters created.");
+                    }
+                    healthy = (nioSinglePortHarvesters != null);
+                } else {
+                    singlePortHarvesters = SinglePortUdpHarvester.createHarvesters(singlePort);
+                    if (singlePortHarvesters.isEmpty()) {
+                        singlePortHarvesters = null;
+                        classLogger.info("No single-port harvesters created.");
+                    }
+                    healthy = (singlePortHarvesters != null);
                 }
-                healthy = (singlePortHarvesters != null);
             }
             if (!cfg.getBoolean("org.jitsi.videobridge.DISABLE_TCP_HARVESTER", false)) {
                 int port = cfg.getInt("org.jitsi.videobridge.TCP_HARVESTER_PORT", -1);
@@ -167,6 +186,22 @@ public class IceUdpTransportManager extends TransportManager {
         }
     }
 
+    public static synchronized long getNioSinglePortPacketsDropped() {
+        long dropped = 0L;
+        if (nioSinglePortHarvesters != null)
+            for (NioSinglePortUdpHarvester harvester : nioSinglePortHarvesters)
+                dropped += harvester.getPacketsDropped();
+        return dropped;
+    }
+
+    public static synchronized long getNioSinglePortSendPacketsDropped() {
+        long dropped = 0L;
+        if (nioSinglePortHarvesters != null)
+            for (NioSinglePortUdpHarvester harvester : nioSinglePortHarvesters)
+                dropped += harvester.getSendPacketsDropped();
+        return dropped;
+    }
+
     public static void closeStaticConfiguration(ConfigurationService cfg) {
         synchronized (IceUdpTransportManager.class) {
             if (!staticConfigurationInitialized)
@@ -176,6 +211,10 @@ public class IceUdpTransportManager extends TransportManager {
                 singlePortHarvesters.forEach(AbstractUdpListener::close);
                 singlePortHarvesters = null;
             }
+            if (nioSinglePortHarvesters != null) {
+                nioSinglePortHarvesters.forEach(NioSinglePortUdpHarvester::close);
+                nioSinglePortHarvesters = null;
+            }
             if (tcpHarvester != null) {
                 tcpHarvester.close();
                 tcpHarvester = null;
@@ -334,6 +373,11 @@ public class IceUdpTransportManager extends TransportManager {
                     iceAgent.addCandidateHarvester(harvester);
                     disableDynamicHostHarvester = true;
                 }
+            if (nioSinglePortHarvesters != null)
+                for (CandidateHarvester harvester : nioSinglePortHarvesters) {
+                    iceAgent.addCandidateHarvester(harvester);
+                    disableDynamicHostHarvester = true;
+                }
         }
         if (disableDynamicHostHarvester)
             iceAgent.setUseHostHarvester(false);
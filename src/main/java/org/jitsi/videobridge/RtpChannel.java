@@ -51,6 +51,7 @@ import org.jitsi.utils.event.WeakReferencePropertyChangeListener;
 import org.jitsi.utils.logging.DiagnosticContext;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.transform.RtpChannelTransformEngine;
+import org.jitsi.videobridge.util.CopyOnWriteIntSet;
 import org.jitsi.videobridge.xmpp.ComponentImpl;
 import org.jitsi.videobridge.xmpp.MediaStreamTrackFactory;
 import org.jitsi.xmpp.extensions.colibri.ColibriConferenceIQ;
@@ -70,18 +71,12 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
 
     private static final Logger classLogger = Logger.getLogger(RtpChannel.class);
 
-    private static final long[] NO_RECEIVE_SSRCS = new long[0];
-
     private static final int[] EMPTY_INT_ARRAY = new int[0];
 
     private static final int MAX_RECEIVE_SSRCS = 50;
 
     protected final ConferenceSpeechActivity conferenceSpeechActivity;
 
-    static RtpChannel getChannel(MediaStream stream) {
-        return (RtpChannel)stream.getProperty(RtpChannel.class.getName());
-    }
-
     private final RtpChannelDatagramFilter[] datagramFilters = new RtpChannelDatagramFilter[2];
 
     private final long initialLocalSSRC;
@@ -90,7 +85,9 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
 
     private int[] receivePTs = new int[0];
 
-    private long[] receiveSSRCs = NO_RECEIVE_SSRCS;
+    private final CopyOnWriteIntSet receiveSSRCs = new CopyOnWriteIntSet();
+
+    private volatile int forwardingIndex = -1;
 
     private final Object receiveSSRCsSyncRoot = new Object();
 
@@ -255,22 +252,15 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
     }
 
     private boolean addReceiveSSRC(int receiveSSRC, boolean checkLimit) throws SizeExceededException {
+        if (this.receiveSSRCs.contains(receiveSSRC))
+            return false;
         synchronized (this.receiveSSRCsSyncRoot) {
-            long now = System.currentTimeMillis();
-            int length = this.receiveSSRCs.length;
-            for (int i = 0; i < length; i += 2) {
-                if ((int)this.receiveSSRCs[i] == receiveSSRC) {
-                    this.receiveSSRCs[i + 1] = now;
-                    return false;
-                }
-            }
-            if (checkLimit && length >= 25)
+            if (this.receiveSSRCs.contains(receiveSSRC))
+                return false;
+            if (checkLimit && this.receiveSSRCs.size() >= MAX_RECEIVE_SSRCS / 2)
                 throw new SizeExceededException();
-            long[] newReceiveSSRCs = new long[length + 2];
-            System.arraycopy(this.receiveSSRCs, 0, newReceiveSSRCs, 0, length);
-            newReceiveSSRCs[length] = 0xFFFFFFFFL & receiveSSRC;
-            newReceiveSSRCs[length + 1] = now;
-            this.receiveSSRCs = newReceiveSSRCs;
+            this.receiveSSRCs.add(receiveSSRC);
+            getContent().getConference().receiveSSRCAdded(this, receiveSSRC);
             return true;
         }
     }
@@ -283,6 +273,8 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
             this.statistics.packetsReceived = mss.getReceiveStats().getPackets();
             this.statistics.packetsSent = mss.getSendStats().getPackets();
             this.stream.setProperty(RtpChannel.class.getName(), null);
+            getContent().streamClosed(this, this.stream, this.forwardingIndex);
+            this.forwardingIndex = -1;
             removeStreamListeners();
             this.stream.close();
             this.streamClosed = true;
@@ -338,14 +330,12 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
     }
 
     public int[] getReceiveSSRCs() {
-        long[] receiveSSRCsField = this.receiveSSRCs;
-        int length = receiveSSRCsField.length;
-        if (length == 0)
-            return ColibriConferenceIQ.NO_SSRCS;
-        int[] receiveSSRCs = new int[length / 2];
-        for (int src = 0, dst = 0; src < length; src += 2, dst++)
-            receiveSSRCs[dst] = (int)receiveSSRCsField[src];
-        return receiveSSRCs;
+        int[] receiveSSRCs = this.receiveSSRCs.toArray();
+        return (receiveSSRCs.length == 0) ? ColibriConferenceIQ.NO_SSRCS : receiveSSRCs;
+    }
+
+    public boolean hasReceiveSSRC(int receiveSSRC) {
+        return this.receiveSSRCs.contains(receiveSSRC);
     }
 
     public RTPLevelRelayType getRTPLevelRelayType() {
@@ -389,6 +379,7 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
             this.stream.addPropertyChangeListener(this.streamPropertyChangeListener);
             this.stream.setName(getID());
             this.stream.setProperty(RtpChannel.class.getName(), this);
+            this.forwardingIndex = getContent().streamCreated(this, this.stream);
             if (this.stream instanceof MediaStreamImpl) {
                 MediaStreamImpl streamImpl = (MediaStreamImpl)this.stream;
                 DiagnosticContext diagnosticContext = streamImpl.getDiagnosticContext();
@@ -516,6 +507,7 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
 
     protected void onEndpointChanged(AbstractEndpoint oldValue, AbstractEndpoint newValue) {
         super.onEndpointChanged(oldValue, newValue);
+        getContent().getConference().getTrackCatalog().invalidate();
         if (oldValue != null) {
             oldValue.removeChannel(this);
             oldValue.removePropertyChangeListener(this);
@@ -537,29 +529,12 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
     }
 
     private boolean removeReceiveSSRC(int receiveSSRC) {
-        boolean removed = false;
+        boolean removed;
         synchronized (this.receiveSSRCsSyncRoot) {
-            int length = this.receiveSSRCs.length;
-            if (length == 2) {
-                if ((int)this.receiveSSRCs[0] == receiveSSRC) {
-                    this.receiveSSRCs = NO_RECEIVE_SSRCS;
-                    removed = true;
-                }
-            } else {
-                for (int i = 0; i < length; i += 2) {
-                    if ((int)this.receiveSSRCs[i] == receiveSSRC) {
-                        long[] newReceiveSSRCs = new long[length - 2];
-                        if (i != 0)
-                            System.arraycopy(this.receiveSSRCs, 0, newReceiveSSRCs, 0, i);
-                        if (i != newReceiveSSRCs.length)
-                            System.arraycopy(this.receiveSSRCs, i + 2, newReceiveSSRCs, i, newReceiveSSRCs.length - i);
-                        this.receiveSSRCs = newReceiveSSRCs;
-                        removed = true;
-                        break;
-                    }
-                }
-            }
+            removed = this.receiveSSRCs.remove(receiveSSRC);
         }
+        if (removed)
+            getContent().getConference().receiveSSRCRemoved(this, receiveSSRC);
         return removed;
     }
 
@@ -581,6 +556,10 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
         return true;
     }
 
+    public int getForwardingIndex() {
+        return this.forwardingIndex;
+    }
+
     void endpointMessageTransportConnected() {}
 
     public void setDirection(MediaDirection direction) {
@@ -677,7 +656,7 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
         touch();
     }
 
-    void speechActivityEndpointsChanged(List<AbstractEndpoint> endpoints) {}
+    void speechActivityEndpointsChanged() {}
 
     private void streamPropertyChange(PropertyChangeEvent ev) {
         String propertyName = ev.getPropertyName();
@@ -769,6 +748,9 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
         if (!super.expire())
             return false;
         updateStatisticsOnExpire();
+        Conference conference = getContent().getConference();
+        for (int receiveSSRC : getReceiveSSRCs())
+            conference.receiveSSRCRemoved(this, receiveSSRC);
         RtpChannelTransformEngine rtpChannelTransformEngine = this.transformEngine;
         if (rtpChannelTransformEngine != null) {
             PacketTransformer t = rtpChannelTransformEngine.getRTPTransformer();
@@ -855,10 +837,12 @@ public class RtpChannel extends Channel implements PropertyChangeListener {
             MediaStreamTrackDesc[] newTracks = MediaStreamTrackFactory.createMediaStreamTracks(mediaStreamTrackReceiver, sources, sourceGroups);
             changed = mediaStreamTrackReceiver.setMediaStreamTracks(newTracks);
         }
-        if (changed)
+        if (changed) {
+            getContent().getConference().getTrackCatalog().invalidate();
             getContent().getChannels().stream()
                     .filter(c -> (c != this && c instanceof RtpChannel))
                     .forEach(c -> ((RtpChannel)c).updateBitrateController());
+        }
         return changed;
     }
 
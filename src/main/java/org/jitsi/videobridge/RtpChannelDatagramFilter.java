@@ -49,11 +49,7 @@ public class RtpChannelDatagramFilter implements DatagramPacketFilter {
                 if (channelSSRC == packetSenderSSRC)
                     return true;
             }
-            channelSSRCs = this.channel.getReceiveSSRCs();
-            for (int channelSSRC : channelSSRCs) {
-                if (channelSSRC == packetSenderSSRC)
-                    return true;
-            }
+            return this.channel.hasReceiveSSRC(packetSenderSSRC);
         }
         return false;
     }
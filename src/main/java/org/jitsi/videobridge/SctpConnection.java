@@ -12,14 +12,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.logging.Level;
+import org.ice4j.socket.IceSocketWrapper;
 import org.ice4j.socket.IceTcpSocketWrapper;
 import org.ice4j.socket.IceUdpSocketWrapper;
 import org.jitsi.impl.neomedia.transform.dtls.DtlsPacketTransformer;
 import org.jitsi.impl.neomedia.transform.dtls.DtlsTransformEngine;
-import org.jitsi.impl.osgi.framework.AsyncExecutor;
 import org.jitsi.sctp4j.NetworkLink;
 import org.jitsi.sctp4j.Sctp;
 import org.jitsi.sctp4j.SctpDataCallback;
@@ -29,9 +31,12 @@ import org.jitsi.service.neomedia.RawPacket;
 import org.jitsi.service.neomedia.SrtpControl;
 import org.jitsi.service.neomedia.StreamConnector;
 import org.jitsi.util.RawPacketQueue;
+import org.jitsi.utils.concurrent.ExecutorFactory;
 import org.jitsi.utils.concurrent.ExecutorUtils;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.utils.queue.PacketQueue;
+import org.jitsi.videobridge.util.ByteArrayPool;
+import org.jitsi.videobridge.util.SerialExecutor;
 
 public class SctpConnection extends Channel implements SctpDataCallback, SctpSocket.NotificationListener {
     private static int debugIdGen = -1;
@@ -54,6 +59,12 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
 
             .getName());
 
+    private static final ScheduledExecutorService sctpReactor = ExecutorFactory.createCPUBoundScheduledExecutor("SctpReactor", 60, TimeUnit.SECONDS);
+
+    private static final long ACCEPT_RETRY_MS = 100L;
+
+    private static final int MAX_PENDING_DTLS_PACKETS = 256;
+
     static final int WEB_RTC_PPID_BIN = 53;
 
     static final int WEB_RTC_PPID_CTRL = 50;
@@ -62,9 +73,9 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
 
     private static final String WEBRTC_DATA_CHANNEL_PROTOCOL = "http://jitsi.org/protocols/colibri";
 
-    private boolean acceptedIncomingConnection;
+    private volatile boolean acceptedIncomingConnection;
 
-    private boolean assocIsUp;
+    private volatile boolean assocIsUp;
 
     private static synchronized int generateDebugId() {
         debugIdGen += 2;
@@ -75,11 +86,11 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
 
     private final int debugId;
 
-    private final AsyncExecutor<Runnable> sctpDispatcher = new AsyncExecutor(15L, TimeUnit.MILLISECONDS);
+    private final SerialExecutor sctpDispatcher = new SerialExecutor(sctpReactor);
 
-    private final List<WebRtcDataStreamListener> listeners = new ArrayList<>();
+    private final AtomicInteger pendingDtlsPackets = new AtomicInteger();
 
-    private final Object isReadyWaitLock = new Object();
+    private final List<WebRtcDataStreamListener> listeners = new ArrayList<>();
 
     private final int remoteSctpPort;
 
@@ -95,6 +106,10 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
 
     private final Handler handler = new Handler();
 
+    private final RawPacket recvPacket = new RawPacket();
+
+    private final RawPacket[] recvPackets = new RawPacket[1];
+
     private final Logger logger;
 
     public SctpConnection(String id, Content content, AbstractEndpoint endpoint, int remoteSctpPort, String channelBundleId, Boolean initiator) {
@@ -145,13 +160,6 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
         throw new IllegalArgumentException("Unsupported Jingle transport " + xmlNamespace);
     }
 
-    public boolean expire() {
-        if (!super.expire())
-            return false;
-        this.sctpDispatcher.shutdown();
-        return true;
-    }
-
     public void forEachDataStream(Consumer<WebRtcDataStream> action) {
         ArrayList<WebRtcDataStream> streams;
         synchronized (this.syncRoot) {
@@ -322,11 +330,10 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
                     assocChange = (SctpNotification.AssociationChange)notification;
                     switch (assocChange.state) {
                         case 1:
-                            synchronized (this.isReadyWaitLock) {
-                                if (!this.assocIsUp) {
-                                    this.assocIsUp = true;
-                                    this.isReadyWaitLock.notifyAll();
-                                }
+                            if (!this.assocIsUp) {
+                                this.assocIsUp = true;
+                                if (isReady())
+                                    this.sctpDispatcher.execute(this::maybeOpenDefaultWebRTCDataChannel);
                             }
                             break;
                         case 2:
@@ -438,13 +445,12 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
     }
 
     private void runOnDtlsTransport(StreamConnector connector) throws IOException {
-        IceTcpSocketWrapper iceTcpSocketWrapper = null;
+        IceSocketWrapper iceSocketWrapper;
         SrtpControl srtpControl = getTransportManager().getSrtpControl(this);
         DtlsTransformEngine engine = (DtlsTransformEngine)srtpControl.getTransformEngine();
         DtlsPacketTransformer transformer = (DtlsPacketTransformer)engine.getRTPTransformer();
         if (this.transformer == null)
             this.transformer = transformer;
-        byte[] receiveBuffer = new byte[2035];
         synchronized (this.syncRoot) {
             this.sctpSocket = Sctp.createSocket(5000);
             this.assocIsUp = false;
@@ -465,26 +471,34 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
         this.sctpDispatcher.execute(this::acceptIncomingSctpConnection);
         DatagramSocket datagramSocket = connector.getDataSocket();
         if (datagramSocket != null) {
-            IceUdpSocketWrapper iceUdpSocketWrapper = new IceUdpSocketWrapper(datagramSocket);
+            iceSocketWrapper = new IceUdpSocketWrapper(datagramSocket);
         } else {
-            iceTcpSocketWrapper = new IceTcpSocketWrapper(connector.getDataTCPSocket());
+            iceSocketWrapper = new IceTcpSocketWrapper(connector.getDataTCPSocket());
         }
-        DatagramPacket recv = new DatagramPacket(receiveBuffer, 0, receiveBuffer.length);
+        DatagramPacket recv = new DatagramPacket(new byte[0], 0, 0);
         try {
             while (true) {
-                iceTcpSocketWrapper.receive(recv);
-                RawPacket[] send = { new RawPacket(recv.getData(), recv.getOffset(), recv.getLength()) };
-                send = transformer.reverseTransform(send);
-                if (send == null || send.length == 0)
-                    continue;
-                touch(Channel.ActivityType.PAYLOAD);
-                if (this.sctpSocket == null)
+                byte[] receiveBuffer = ByteArrayPool.getBuffer(2035);
+                recv.setData(receiveBuffer, 0, 2035);
+                try {
+                    iceSocketWrapper.receive(recv);
+                } catch (IOException ioe) {
+                    ByteArrayPool.returnBuffer(receiveBuffer);
+                    throw ioe;
+                }
+                if (this.sctpSocket == null) {
+                    ByteArrayPool.returnBuffer(receiveBuffer);
                     break;
-                for (RawPacket s : send) {
-                    if (s != null)
-                        this.sctpSocket.onConnIn(s
-                                .getBuffer(), s.getOffset(), s.getLength());
                 }
+                if (this.pendingDtlsPackets.incrementAndGet() > MAX_PENDING_DTLS_PACKETS) {
+                    this.pendingDtlsPackets.decrementAndGet();
+                    ByteArrayPool.returnBuffer(receiveBuffer);
+                    dtlsPacketDropped();
+                    continue;
+                }
+                int off = recv.getOffset();
+                int len = recv.getLength();
+                this.sctpDispatcher.execute(() -> processDtlsPacket(transformer, receiveBuffer, off, len));
             }
         } catch (SocketException ex) {
             if (!"Socket closed".equals(ex.getMessage()) && !(ex instanceof org.ice4j.socket.SocketClosedException))
@@ -494,33 +508,61 @@ public class SctpConnection extends Channel implements SctpDataCallback, SctpSoc
         }
     }
 
-    private void acceptIncomingSctpConnection() {
-        SctpSocket sctpSocket = null;
+    private void processDtlsPacket(DtlsPacketTransformer transformer, byte[] buf, int off, int len) {
         try {
-            sctpSocket = this.sctpSocket;
-            while (sctpSocket != null) {
-                if (sctpSocket.accept()) {
-                    this.acceptedIncomingConnection = true;
-                    this.logger.info(
-                            String.format("SCTP socket accepted on %s", new Object[] { getLoggingId() }));
-                    break;
-                }
-                Thread.sleep(100L);
-                sctpSocket = this.sctpSocket;
+            SctpSocket sctpSocket = this.sctpSocket;
+            if (sctpSocket == null)
+                return;
+            this.recvPacket.setBuffer(buf);
+            this.recvPacket.setOffset(off);
+            this.recvPacket.setLength(len);
+            this.recvPackets[0] = this.recvPacket;
+            RawPacket[] send = transformer.reverseTransform(this.recvPackets);
+            if (send == null || send.length == 0)
+                return;
+            touch(Channel.ActivityType.PAYLOAD);
+            for (RawPacket s : send) {
+                if (s != null)
+                    sctpSocket.onConnIn(s
+                            .getBuffer(), s.getOffset(), s.getLength());
             }
-            synchronized (this.isReadyWaitLock) {
-                while (sctpSocket != null && !isExpired() && !isReady()) {
-                    this.isReadyWaitLock.wait();
-                    sctpSocket = this.sctpSocket;
-                }
-                this.sctpDispatcher.execute(this::maybeOpenDefaultWebRTCDataChannel);
+        } catch (Exception e) {
+            this.logger.error("Failed to process a DTLS packet", e);
+        } finally {
+            this.recvPackets[0] = null;
+            ByteArrayPool.returnBuffer(buf);
+            this.pendingDtlsPackets.decrementAndGet();
+        }
+    }
+
+    private void dtlsPacketDropped() {
+        long dropped = (getContent().getConference().getVideobridge().getStatistics()).totalSctpPacketsDropped.incrementAndGet();
+        if (dropped == 1L || dropped % 1000L == 0L)
+            this.logger.warn("SCTP processing is falling behind, dropped a DTLS packet for " +
+                    getLoggingId() + " (total dropped: " + dropped + ").");
+    }
+
+    private void acceptIncomingSctpConnection() {
+        SctpSocket sctpSocket = this.sctpSocket;
+        if (sctpSocket == null || isExpired()) {
+            this.logger.info(String.format("SctpConnection %s closed before SctpSocket accept()-ed.", new Object[] { getLoggingId() }));
+            return;
+        }
+        try {
+            if (!sctpSocket.accept()) {
+                sctpReactor.schedule(() -> this.sctpDispatcher.execute(this::acceptIncomingSctpConnection), ACCEPT_RETRY_MS, TimeUnit.MILLISECONDS);
+                return;
             }
         } catch (Exception e) {
             this.logger.error(
                     String.format("Error accepting SCTP connection %s", new Object[] { getLoggingId() }), e);
+            return;
         }
-        if (sctpSocket == null)
-            this.logger.info(String.format("SctpConnection %s closed before SctpSocket accept()-ed.", new Object[] { getLoggingId() }));
+        this.acceptedIncomingConnection = true;
+        this.logger.info(
+                String.format("SCTP socket accepted on %s", new Object[] { getLoggingId() }));
+        if (isReady())
+            maybeOpenDefaultWebRTCDataChannel();
     }
 
     private void sendOpenChannelAck(int sid) throws IOException {
@@ -113,7 +113,7 @@ public class VideoChannel extends RtpChannel {
         stream = getStream();
         boolean currentlyStarted = (stream != null && stream.isStarted());
         if (currentlyStarted && !previouslyStarted)
-            this.bitrateController.update(null, -1L);
+            this.bitrateController.update();
     }
 
     protected void updateBitrateController() {
@@ -213,7 +213,7 @@ public class VideoChannel extends RtpChannel {
             endpointsEnteringLastN = forwardedEndpoints;
         String msg = EndpointMessageBuilder.createLastNEndpointsChangeEvent(forwardedEndpoints, endpointsEnteringLastN, conferenceEndpoints);
         try {
-            thisEndpoint.sendMessage(msg);
+            thisEndpoint.sendMessage(new EncodedMessage(msg, "LastNEndpointsChangeEvent"));
         } catch (IOException e) {
             this.logger.error("Failed to send message on data channel.", e);
         }
@@ -227,8 +227,8 @@ public class VideoChannel extends RtpChannel {
         touch();
     }
 
-    void speechActivityEndpointsChanged(List<AbstractEndpoint> endpoints) {
-        this.bitrateController.update(endpoints, -1L);
+    void speechActivityEndpointsChanged() {
+        this.bitrateController.update();
     }
 
     public void setPayloadTypes(List<PayloadTypePacketExtension> payloadTypes) {
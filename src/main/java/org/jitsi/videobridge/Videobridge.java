@@ -45,6 +45,7 @@ import org.jitsi.xmpp.util.IQUtils;
 import org.jivesoftware.smack.packet.IQ;
 import org.jivesoftware.smack.packet.XMPPError;
 import org.jivesoftware.smack.provider.ProviderManager;
+import org.jitsi.videobridge.util.LatencyHistogram;
 import org.jivesoftware.smackx.pubsub.PubSubElementType;
 import org.jivesoftware.smackx.pubsub.provider.PubSubProvider;
 import org.jxmpp.jid.Jid;
@@ -110,6 +111,10 @@ public class Videobridge {
         this.videobridgeExpireThread = new VideobridgeExpireThread(this);
     }
 
+    VideobridgeExpireThread getExpireThread() {
+        return this.videobridgeExpireThread;
+    }
+
     public Conference createConference(Jid focus, Localpart name, String gid) {
         return createConference(focus, name, true, gid);
     }
@@ -787,5 +792,11 @@ public class Videobridge {
         public AtomicLong totalPacketsReceivedOcto = new AtomicLong();
 
         public AtomicLong totalPacketsSentOcto = new AtomicLong();
+
+        public AtomicLong totalSctpPacketsDropped = new AtomicLong();
+
+        public AtomicLong totalBitrateReallocations = new AtomicLong();
+
+        public final LatencyHistogram bitrateReallocationLatency = new LatencyHistogram();
     }
 }
@@ -2,6 +2,7 @@ package org.jitsi.videobridge;
 
 import java.util.Objects;
 import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
 import org.jitsi.osgi.ServiceUtils2;
 import org.jitsi.service.configuration.ConfigurationService;
 import org.jitsi.utils.concurrent.ExecutorUtils;
@@ -9,6 +10,8 @@ import org.jitsi.utils.concurrent.PeriodicRunnable;
 import org.jitsi.utils.concurrent.RecurringRunnable;
 import org.jitsi.utils.concurrent.RecurringRunnableExecutor;
 import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.util.ExpireTimingWheel;
+import org.jitsi.videobridge.util.Expireable;
 import org.osgi.framework.BundleContext;
 
 class VideobridgeExpireThread {
@@ -25,6 +28,14 @@ class VideobridgeExpireThread {
 
     private static final int EXPIRE_CHECK_SLEEP_SEC_DEFAULT = 60;
 
+    private static final long EXPIRE_TICK_MS = 1000L;
+
+    private static final int EXPIRE_WHEEL_SIZE = 512;
+
+    private final ExpireTimingWheel expireWheel = new ExpireTimingWheel(EXPIRE_TICK_MS, EXPIRE_WHEEL_SIZE, EXPIRE_EXECUTOR);
+
+    private volatile long expireRecheckMs = 60000L;
+
     private PeriodicRunnable expireRunnable;
 
     private Videobridge videobridge;
@@ -36,13 +47,13 @@ class VideobridgeExpireThread {
     void start(BundleContext bundleContext) {
         ConfigurationService cfg = (ConfigurationService)ServiceUtils2.getService(bundleContext, ConfigurationService.class);
         int expireCheckSleepSec = (cfg == null) ? 60 : cfg.getInt("org.jitsi.videobridge.EXPIRE_CHECK_SLEEP_SEC", 60);
-        logger.info("Starting with " + expireCheckSleepSec + " second interval.");
-        this.expireRunnable = new PeriodicRunnable((expireCheckSleepSec * 1000)) {
+        this.expireRecheckMs = expireCheckSleepSec * 1000L;
+        logger.info("Starting with " + EXPIRE_TICK_MS + " ms tick and " + expireCheckSleepSec + " second recheck interval.");
+        this.expireRunnable = new PeriodicRunnable(EXPIRE_TICK_MS) {
             public void run() {
                 super.run();
-                Videobridge videobridge = VideobridgeExpireThread.this.videobridge;
-                if (videobridge != null)
-                    VideobridgeExpireThread.this.expire(videobridge);
+                if (VideobridgeExpireThread.this.videobridge != null)
+                    VideobridgeExpireThread.this.expireWheel.advance(System.currentTimeMillis());
             }
         };
         EXECUTOR.registerRecurringRunnable((RecurringRunnable)this.expireRunnable);
@@ -56,23 +67,7 @@ class VideobridgeExpireThread {
         this.videobridge = null;
     }
 
-    private void expire(Videobridge videobridge) {
-        logger.info("Running expire()");
-        for (Conference conference : videobridge.getConferences()) {
-            if (conference.shouldExpire()) {
-                EXPIRE_EXECUTOR.execute(conference::safeExpire);
-            } else {
-                for (Content content : conference.getContents()) {
-                    if (content.shouldExpire()) {
-                        EXPIRE_EXECUTOR.execute(content::safeExpire);
-                    } else {
-                        for (Channel channel : content.getChannels()) {
-                            if (channel.shouldExpire())
-                                EXPIRE_EXECUTOR.execute(channel::safeExpire);
-                        }
-                    }
-                }
-            }
-        }
+    ExpireTimingWheel.Timer schedule(Expireable expireable, LongSupplier deadline) {
+        return this.expireWheel.schedule(expireable, deadline, this.expireRecheckMs);
     }
 }
@@ -1,7 +1,6 @@
 package org.jitsi.videobridge;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import net.java.sip.communicator.util.Logger;
 import org.jitsi.sctp4j.SctpSocket;
 
@@ -60,14 +59,14 @@ public class WebRtcDataStream {
     }
 
     public void sendString(String strMsg) throws IOException {
-        try {
-            byte[] bytes = strMsg.getBytes("UTF-8");
-            int res = this.socket.send(bytes, true, this.sid, 51);
-            if (res != bytes.length)
-                throw new IOException("Failed to send the data");
-        } catch (UnsupportedEncodingException e) {
-            throw new IOException(e);
-        }
+        sendString(new EncodedMessage(strMsg));
+    }
+
+    public void sendString(EncodedMessage msg) throws IOException {
+        byte[] bytes = msg.getBytes();
+        int res = this.socket.send(bytes, true, this.sid, 51);
+        if (res != bytes.length)
+            throw new IOException("Failed to send the data");
     }
 
     public void onBinaryMsg(byte[] binMsg) {
@@ -16,12 +16,11 @@ import org.jitsi.service.neomedia.RawPacket;
 import org.jitsi.service.neomedia.format.MediaFormat;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.cc.vp8.VP8AdaptiveTrackProjectionContext;
+import org.jitsi.videobridge.util.Clock;
 
 public class AdaptiveTrackProjection {
     private static final Logger logger = Logger.getLogger(AdaptiveTrackProjection.class);
 
-    public static final RawPacket[] EMPTY_PACKET_ARR = AdaptiveTrackProjectionContext.EMPTY_PACKET_ARR;
-
     private final WeakReference<MediaStreamTrackDesc> weakSource;
 
     private final long targetSsrc;
@@ -34,8 +33,11 @@ public class AdaptiveTrackProjection {
 
     private int targetIndex = -1;
 
-    AdaptiveTrackProjection(@NotNull MediaStreamTrackDesc source) {
+    private final Clock clock;
+
+    AdaptiveTrackProjection(@NotNull MediaStreamTrackDesc source, @NotNull Clock clock) {
         this.weakSource = new WeakReference<MediaStreamTrackDesc>(source);
+        this.clock = clock;
         this.targetSsrc = source.getRTPEncodings()[0].getPrimarySSRC();
     }
 
@@ -109,7 +111,7 @@ public class AdaptiveTrackProjection {
             int payloadLen = rtpPacket.getPayloadLength();
             boolean hasTemporalLayerIndex = (DePacketizer.VP8PayloadDescriptor.getTemporalLayerIndex(buf, payloadOffset, payloadLen) > -1);
             if (hasTemporalLayerIndex && !(this.context instanceof VP8AdaptiveTrackProjectionContext)) {
-                this.context = (AdaptiveTrackProjectionContext)new VP8AdaptiveTrackProjectionContext(format, getRtpState());
+                this.context = (AdaptiveTrackProjectionContext)new VP8AdaptiveTrackProjectionContext(format, getRtpState(), this.clock);
                 this.contextPayloadType = payloadType;
             } else if (!hasTemporalLayerIndex && !(this.context instanceof GenericAdaptiveTrackProjectionContext)) {
                 this.context = new GenericAdaptiveTrackProjectionContext(format, getRtpState());
@@ -134,10 +136,10 @@ public class AdaptiveTrackProjection {
         return this.context.getRtpState();
     }
 
-    RawPacket[] rewriteRtp(@NotNull RawPacket rtpPacket) throws RewriteException {
+    void rewriteRtp(@NotNull RawPacket rtpPacket, @NotNull RawPacketBuffer extras) throws RewriteException {
         AdaptiveTrackProjectionContext contextCopy = this.context;
         if (contextCopy == null)
-            return EMPTY_PACKET_ARR;
+            return;
         RawPacketCache incomingRawPacketCache = null;
         MediaStreamTrackDesc source = getSource();
         if (source != null) {
@@ -153,7 +155,7 @@ public class AdaptiveTrackProjection {
                 logger.warn("stream is null.");
             }
         }
-        return contextCopy.rewriteRtp(rtpPacket, incomingRawPacketCache);
+        contextCopy.rewriteRtp(rtpPacket, incomingRawPacketCache, extras);
     }
 
     public boolean rewriteRtcp(@NotNull RawPacket rtcpPacket) {
@@ -5,12 +5,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import org.jitsi.impl.neomedia.MediaStreamImpl;
 import org.jitsi.impl.neomedia.RTCPPacketPredicate;
@@ -27,12 +26,15 @@ import org.jitsi.service.neomedia.RawPacket;
 import org.jitsi.service.neomedia.rtp.BandwidthEstimator;
 import org.jitsi.utils.ArrayUtils;
 import org.jitsi.utils.ByteArrayBuffer;
-import org.jitsi.utils.MediaType;
 import org.jitsi.utils.logging.DiagnosticContext;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.utils.logging.TimeSeriesLogger;
 import org.jitsi.videobridge.AbstractEndpoint;
 import org.jitsi.videobridge.VideoChannel;
+import org.jitsi.videobridge.util.CachedClock;
+import org.jitsi.videobridge.util.Clock;
+import org.jitsi.videobridge.util.CopyOnWriteLongMap;
+import org.jitsi.videobridge.util.SsrcSubscriptionTable;
 
 public class BitrateController implements TransformEngine {
     public static final String BWE_CHANGE_THRESHOLD_PCT_PNAME = "org.jitsi.videobridge.BWE_CHANGE_THRESHOLD_PCT";
@@ -80,11 +82,13 @@ public class BitrateController implements TransformEngine {
 
     private final TimeSeriesLogger timeSeriesLogger = TimeSeriesLogger.getTimeSeriesLogger(BitrateController.class);
 
+    private static final ThreadLocal<RawPacketBuffer> EXTRAS = ThreadLocal.withInitial(RawPacketBuffer::new);
+
     private static final Set<String> INITIAL_EMPTY_SET = Collections.unmodifiableSet(new HashSet<>(0));
 
     private final VideoChannel dest;
 
-    private final Map<Long, AdaptiveTrackProjection> adaptiveTrackProjectionMap = new ConcurrentHashMap<>();
+    private final CopyOnWriteLongMap<AdaptiveTrackProjection> adaptiveTrackProjectionMap = new CopyOnWriteLongMap<>();
 
     private final PacketTransformer rtpTransformer = new RTPTransformer();
 
@@ -92,6 +96,8 @@ public class BitrateController implements TransformEngine {
 
     private Set<String> forwardedEndpointIds = INITIAL_EMPTY_SET;
 
+    private volatile Map<String, Integer> subscribedEndpoints = Collections.emptyMap();
+
     private final boolean trustBwe;
 
     private final boolean enableVideoQualityTracing;
@@ -102,8 +108,15 @@ public class BitrateController implements TransformEngine {
 
     private List<AdaptiveTrackProjection> adaptiveTrackProjections;
 
+    private final Clock clock;
+
     public BitrateController(VideoChannel dest) {
+        this(dest, CachedClock.MONOTONIC);
+    }
+
+    BitrateController(VideoChannel dest, Clock clock) {
         this.dest = dest;
+        this.clock = clock;
         ConfigurationService cfg = LibJitsi.getConfigurationService();
         this.trustBwe = (cfg != null && cfg.getBoolean("org.jitsi.videobridge.TRUST_BWE", true));
         this.enableVideoQualityTracing = this.timeSeriesLogger.isTraceEnabled();
@@ -133,7 +146,7 @@ public class BitrateController implements TransformEngine {
         long ssrc = pkt.getSSRCAsLong();
         if (ssrc < 0L)
             return false;
-        AdaptiveTrackProjection adaptiveTrackProjection = this.adaptiveTrackProjectionMap.get(Long.valueOf(ssrc));
+        AdaptiveTrackProjection adaptiveTrackProjection = this.adaptiveTrackProjectionMap.get(ssrc);
         if (adaptiveTrackProjection == null) {
             this.logger.warn("Dropping an RTP packet, because the SSRC has not been signaled " + ((MediaStreamImpl)this.dest
 
@@ -150,29 +163,25 @@ public class BitrateController implements TransformEngine {
                     .makeTimeSeriesPoint("new_bwe")
                     .addField("bwe_bps", Long.valueOf(bweBps)));
         }
-        update(null, bweBps);
+        reallocate(bweBps);
     }
 
     public void update() {
-        update(null, -1L);
+        reallocate(-1L);
     }
 
-    public void update(List<AbstractEndpoint> conferenceEndpoints, long bweBps) {
+    private void reallocate(long bweBps) {
         if (bweBps > -1L) {
             if (!isLargerThanBweThreshold(this.lastBwe, bweBps))
                 return;
             this.lastBwe = bweBps;
         }
-        if (conferenceEndpoints == null) {
-            conferenceEndpoints = this.dest.getConferenceSpeechActivity().getEndpoints();
-        } else {
-            conferenceEndpoints = new ArrayList<AbstractEndpoint>(conferenceEndpoints);
-        }
         if (!(this.dest.getStream() instanceof VideoMediaStreamImpl))
             return;
         VideoMediaStreamImpl destStream = (VideoMediaStreamImpl)this.dest.getStream();
         BandwidthEstimator bwe = (destStream == null) ? null : destStream.getOrCreateBandwidthEstimator();
-        long nowMs = System.currentTimeMillis();
+        long nowMs = this.clock.millis();
+        long wallMs = CachedClock.INSTANCE.millis();
         boolean trustBwe = this.trustBwe;
         if (trustBwe)
             if (this.firstMediaMs == -1L || nowMs - this.firstMediaMs < 10000L)
@@ -182,17 +191,22 @@ public class BitrateController implements TransformEngine {
         if (bweBps < 0L || !trustBwe ||
                 !destStream.getRtxTransformer().destinationSupportsRtx())
             bweBps = Long.MAX_VALUE;
-        TrackBitrateAllocation[] trackBitrateAllocations = allocate(bweBps, conferenceEndpoints);
+        SpeakerOrderedTrackCatalog.Entry[] catalog = this.dest.getContent().getConference().getTrackCatalog().getEntries();
+        TrackBitrateAllocation[] trackBitrateAllocations = allocate(bweBps, catalog);
         Set<String> oldForwardedEndpointIds = this.forwardedEndpointIds;
         Set<String> newForwardedEndpointIds = new HashSet<String>();
         Set<String> endpointsEnteringLastNIds = new HashSet<String>();
         Set<String> conferenceEndpointIds = new HashSet<String>();
+        Map<String, Integer> newSubscribedEndpoints = new HashMap<String, Integer>();
         long totalIdealBps = 0L, totalTargetBps = 0L;
         int totalIdealIdx = 0, totalTargetIdx = 0;
         List<AdaptiveTrackProjection> adaptiveTrackProjections = new ArrayList<AdaptiveTrackProjection>();
         if (!ArrayUtils.isNullOrEmpty((Object[])trackBitrateAllocations)) {
             for (TrackBitrateAllocation trackBitrateAllocation : trackBitrateAllocations) {
                 conferenceEndpointIds.add(trackBitrateAllocation.endpointID);
+                if (trackBitrateAllocation.fitsInLastN && trackBitrateAllocation.track != null)
+                    newSubscribedEndpoints.merge(trackBitrateAllocation.endpointID,
+                            Integer.valueOf(trackBitrateAllocation.getIdealIndex()), Math::max);
                 int trackTargetIdx = trackBitrateAllocation.getTargetIndex();
                 int trackIdealIdx = trackBitrateAllocation.getIdealIndex();
                 AdaptiveTrackProjection adaptiveTrackProjection = lookupOrCreateAdaptiveTrackProjection(trackBitrateAllocation);
@@ -200,6 +214,7 @@ public class BitrateController implements TransformEngine {
                     adaptiveTrackProjections.add(adaptiveTrackProjection);
                     adaptiveTrackProjection.setTargetIndex(trackTargetIdx);
                     adaptiveTrackProjection.setIdealIndex(trackIdealIdx);
+                    updateSubscription(adaptiveTrackProjection.getSource(), (trackTargetIdx > -1));
                     if (trackBitrateAllocation.track != null && this.enableVideoQualityTracing) {
                         DiagnosticContext diagnosticContext = destStream.getDiagnosticContext();
                         long trackTargetBps = trackBitrateAllocation.getTargetBitrate();
@@ -209,7 +224,7 @@ public class BitrateController implements TransformEngine {
                         totalTargetIdx += trackTargetIdx;
                         totalIdealIdx += trackIdealIdx;
                         this.timeSeriesLogger.trace((Map)diagnosticContext
-                                .makeTimeSeriesPoint("track_quality", nowMs)
+                                .makeTimeSeriesPoint("track_quality", wallMs)
                                 .addField("track_id",
                                         Integer.valueOf(trackBitrateAllocation.track.hashCode()))
                                 .addField("target_idx", Integer.valueOf(trackTargetIdx))
@@ -245,11 +260,12 @@ public class BitrateController implements TransformEngine {
                 adaptiveTrackProjection
                         .setIdealIndex(-1);
             }
+            this.dest.getContent().getSubscriptionTable().clear(this.dest.getForwardingIndex());
         }
         if (this.enableVideoQualityTracing) {
             DiagnosticContext diagnosticContext = destStream.getDiagnosticContext();
             this.timeSeriesLogger.trace((Map)diagnosticContext
-                    .makeTimeSeriesPoint("did_update", nowMs)
+                    .makeTimeSeriesPoint("did_update", wallMs)
                     .addField("total_target_idx", Integer.valueOf(totalTargetIdx))
                     .addField("total_ideal_idx", Integer.valueOf(totalIdealIdx))
                     .addField("bwe_bps", Long.valueOf(bweBps))
@@ -261,35 +277,52 @@ public class BitrateController implements TransformEngine {
         if (!newForwardedEndpointIds.equals(oldForwardedEndpointIds))
             this.dest.sendLastNEndpointsChangeEvent(newForwardedEndpointIds, endpointsEnteringLastNIds, conferenceEndpointIds);
         this.forwardedEndpointIds = newForwardedEndpointIds;
+        if (!newSubscribedEndpoints.equals(this.subscribedEndpoints)) {
+            this.subscribedEndpoints = Collections.unmodifiableMap(newSubscribedEndpoints);
+            this.dest.getContent().getConference().videoSubscriptionChanged();
+        }
+    }
+
+    private void updateSubscription(MediaStreamTrackDesc track, boolean subscribed) {
+        int forwardingIndex = this.dest.getForwardingIndex();
+        if (track == null || forwardingIndex < 0)
+            return;
+        SsrcSubscriptionTable subscriptionTable = this.dest.getContent().getSubscriptionTable();
+        for (RTPEncodingDesc encoding : track.getRTPEncodings()) {
+            subscriptionTable.set(encoding.getPrimarySSRC(), forwardingIndex, subscribed);
+            long rtxSsrc = encoding.getSecondarySsrc("rtx");
+            if (rtxSsrc != -1L)
+                subscriptionTable.set(rtxSsrc, forwardingIndex, subscribed);
+        }
     }
 
     private AdaptiveTrackProjection lookupOrCreateAdaptiveTrackProjection(TrackBitrateAllocation trackBitrateAllocation) {
         synchronized (this.adaptiveTrackProjectionMap) {
             int ssrc = trackBitrateAllocation.targetSSRC;
-            AdaptiveTrackProjection adaptiveTrackProjection = this.adaptiveTrackProjectionMap.get(Long.valueOf(ssrc & 0xFFFFFFFFL));
+            AdaptiveTrackProjection adaptiveTrackProjection = this.adaptiveTrackProjectionMap.get(ssrc & 0xFFFFFFFFL);
             if (adaptiveTrackProjection != null || trackBitrateAllocation
                     .track == null)
                 return adaptiveTrackProjection;
             RTPEncodingDesc[] rtpEncodings = trackBitrateAllocation.track.getRTPEncodings();
             if (ArrayUtils.isNullOrEmpty((Object[])rtpEncodings))
                 return adaptiveTrackProjection;
-            adaptiveTrackProjection = new AdaptiveTrackProjection(trackBitrateAllocation.track);
+            adaptiveTrackProjection = new AdaptiveTrackProjection(trackBitrateAllocation.track, this.clock);
             this.logger.info("new track projection for " + trackBitrateAllocation
                     .track);
             for (RTPEncodingDesc rtpEncoding : rtpEncodings) {
                 this.adaptiveTrackProjectionMap.put(
-                        Long.valueOf(rtpEncoding.getPrimarySSRC()), adaptiveTrackProjection);
+                        rtpEncoding.getPrimarySSRC(), adaptiveTrackProjection);
                 long rtxSsrc = rtpEncoding.getSecondarySsrc("rtx");
                 if (rtxSsrc != -1L)
                     this.adaptiveTrackProjectionMap.put(
-                            Long.valueOf(rtxSsrc), adaptiveTrackProjection);
+                            rtxSsrc, adaptiveTrackProjection);
             }
             return adaptiveTrackProjection;
         }
     }
 
-    private TrackBitrateAllocation[] allocate(long maxBandwidth, List<AbstractEndpoint> conferenceEndpoints) {
-        TrackBitrateAllocation[] trackBitrateAllocations = prioritize(conferenceEndpoints);
+    private TrackBitrateAllocation[] allocate(long maxBandwidth, SpeakerOrderedTrackCatalog.Entry[] catalog) {
+        TrackBitrateAllocation[] trackBitrateAllocations = prioritize(catalog);
         if (ArrayUtils.isNullOrEmpty((Object[])trackBitrateAllocations))
             return trackBitrateAllocations;
         long oldMaxBandwidth = 0L;
@@ -327,73 +360,61 @@ public class BitrateController implements TransformEngine {
         return trackBitrateAllocations;
     }
 
-    private TrackBitrateAllocation[] prioritize(List<AbstractEndpoint> conferenceEndpoints) {
+    private TrackBitrateAllocation[] prioritize(SpeakerOrderedTrackCatalog.Entry[] catalog) {
         if (this.dest.isExpired())
             return null;
         AbstractEndpoint destEndpoint = this.dest.getEndpoint();
         if (destEndpoint == null || destEndpoint.isExpired())
             return null;
+        String destEndpointId = destEndpoint.getID();
+        int maxFrameHeight = getVideoChannel().getMaxFrameHeight();
         List<TrackBitrateAllocation> trackBitrateAllocations = new ArrayList<TrackBitrateAllocation>();
         int lastN = this.dest.getLastN();
         if (lastN < 0) {
-            lastN = conferenceEndpoints.size() - 1;
+            lastN = catalog.length - 1;
         } else {
-            lastN = Math.min(lastN, conferenceEndpoints.size() - 1);
+            lastN = Math.min(lastN, catalog.length - 1);
         }
         int endpointPriority = 0;
+        boolean[] prioritized = new boolean[catalog.length];
         Set<String> selectedEndpoints = destEndpoint.getSelectedEndpoints();
-        Iterator<AbstractEndpoint> it = conferenceEndpoints.iterator();
-        while (it.hasNext() && endpointPriority < lastN) {
-            AbstractEndpoint sourceEndpoint = it.next();
-            if (sourceEndpoint.isExpired() || sourceEndpoint
-                    .getID().equals(destEndpoint.getID()) ||
-                    !selectedEndpoints.contains(sourceEndpoint.getID()))
+        for (int i = 0; i < catalog.length && endpointPriority < lastN; i++) {
+            SpeakerOrderedTrackCatalog.Entry entry = catalog[i];
+            if (entry.endpoint.isExpired() || entry.endpointId.equals(destEndpointId) ||
+                    !selectedEndpoints.contains(entry.endpointId))
                 continue;
-            MediaStreamTrackDesc[] tracks = sourceEndpoint.getMediaStreamTracks(MediaType.VIDEO);
-            if (!ArrayUtils.isNullOrEmpty((Object[])tracks)) {
-                for (MediaStreamTrackDesc track : tracks)
-                    trackBitrateAllocations.add(endpointPriority, new TrackBitrateAllocation(sourceEndpoint, track, true, true,
-
-                            getVideoChannel().getMaxFrameHeight()));
+            if (entry.tracks.length != 0) {
+                for (MediaStreamTrackDesc track : entry.tracks)
+                    trackBitrateAllocations.add(endpointPriority, new TrackBitrateAllocation(entry.endpoint, track, true, true, maxFrameHeight));
                 endpointPriority++;
             }
-            it.remove();
+            prioritized[i] = true;
         }
         Set<String> pinnedEndpoints = destEndpoint.getPinnedEndpoints();
-        if (!pinnedEndpoints.isEmpty()) {
-            Iterator<AbstractEndpoint> iterator = conferenceEndpoints.iterator();
-            while (iterator.hasNext() && endpointPriority < lastN) {
-                AbstractEndpoint sourceEndpoint = iterator.next();
-                if (sourceEndpoint.isExpired() || sourceEndpoint
-                        .getID().equals(destEndpoint.getID()) ||
-                        !pinnedEndpoints.contains(sourceEndpoint.getID()))
+        if (!pinnedEndpoints.isEmpty())
+            for (int i = 0; i < catalog.length && endpointPriority < lastN; i++) {
+                SpeakerOrderedTrackCatalog.Entry entry = catalog[i];
+                if (prioritized[i] || entry.endpoint.isExpired() || entry.endpointId.equals(destEndpointId) ||
+                        !pinnedEndpoints.contains(entry.endpointId))
                     continue;
-                MediaStreamTrackDesc[] tracks = sourceEndpoint.getMediaStreamTracks(MediaType.VIDEO);
-                if (!ArrayUtils.isNullOrEmpty((Object[])tracks)) {
-                    for (MediaStreamTrackDesc track : tracks)
-                        trackBitrateAllocations.add(endpointPriority, new TrackBitrateAllocation(sourceEndpoint, track, true, false,
-
-                                getVideoChannel().getMaxFrameHeight()));
+                if (entry.tracks.length != 0) {
+                    for (MediaStreamTrackDesc track : entry.tracks)
+                        trackBitrateAllocations.add(endpointPriority, new TrackBitrateAllocation(entry.endpoint, track, true, false, maxFrameHeight));
                     endpointPriority++;
                 }
-                iterator.remove();
+                prioritized[i] = true;
             }
-        }
-        if (!conferenceEndpoints.isEmpty())
-            for (AbstractEndpoint sourceEndpoint : conferenceEndpoints) {
-                if (sourceEndpoint.isExpired() || sourceEndpoint
-                        .getID().equals(destEndpoint.getID()))
-                    continue;
-                boolean forwarded = (endpointPriority < lastN);
-                MediaStreamTrackDesc[] tracks = sourceEndpoint.getMediaStreamTracks(MediaType.VIDEO);
-                if (!ArrayUtils.isNullOrEmpty((Object[])tracks)) {
-                    for (MediaStreamTrackDesc track : tracks)
-                        trackBitrateAllocations.add(endpointPriority, new TrackBitrateAllocation(sourceEndpoint, track, forwarded, false,
-
-                                getVideoChannel().getMaxFrameHeight()));
-                    endpointPriority++;
-                }
+        for (int i = 0; i < catalog.length; i++) {
+            SpeakerOrderedTrackCatalog.Entry entry = catalog[i];
+            if (prioritized[i] || entry.endpoint.isExpired() || entry.endpointId.equals(destEndpointId))
+                continue;
+            boolean forwarded = (endpointPriority < lastN);
+            if (entry.tracks.length != 0) {
+                for (MediaStreamTrackDesc track : entry.tracks)
+                    trackBitrateAllocations.add(endpointPriority, new TrackBitrateAllocation(entry.endpoint, track, forwarded, false, maxFrameHeight));
+                endpointPriority++;
             }
+        }
         return trackBitrateAllocations.<TrackBitrateAllocation>toArray(
                 new TrackBitrateAllocation[trackBitrateAllocations.size()]);
     }
@@ -402,6 +423,10 @@ public class BitrateController implements TransformEngine {
         return this.forwardedEndpointIds;
     }
 
+    public Map<String, Integer> getSubscribedEndpoints() {
+        return this.subscribedEndpoints;
+    }
+
     static class RateSnapshot {
         final long bps;
 
@@ -467,12 +492,12 @@ public class BitrateController implements TransformEngine {
                         if (encoding.getHeight() < BitrateController.ONSTAGE_PREFERRED_HEIGHT || encoding
                                 .getFrameRate() >= BitrateController.ONSTAGE_PREFERRED_FRAME_RATE)
                             ratesList.add(new BitrateController.RateSnapshot(encoding
-                                    .getLastStableBitrateBps(System.currentTimeMillis()), encoding));
+                                    .getLastStableBitrateBps(CachedClock.INSTANCE.millis()), encoding));
                         if (encoding.getHeight() <= BitrateController.ONSTAGE_PREFERRED_HEIGHT)
                             ratedPreferredIdx = ratesList.size() - 1;
                     } else if (encoding.getHeight() <= BitrateController.THUMBNAIL_MAX_HEIGHT) {
                         ratesList.add(new BitrateController.RateSnapshot(encoding
-                                .getLastStableBitrateBps(System.currentTimeMillis()), encoding));
+                                .getLastStableBitrateBps(CachedClock.INSTANCE.millis()), encoding));
                     }
             }
             this.ratedPreferredIdx = ratedPreferredIdx;
@@ -529,33 +554,28 @@ public class BitrateController implements TransformEngine {
             if (ArrayUtils.isNullOrEmpty((Object[])pkts))
                 return pkts;
             if (BitrateController.this.firstMediaMs == -1L)
-                BitrateController.this.firstMediaMs = System.currentTimeMillis();
-            RawPacket[] extras = null;
-            for (int i = 0; i < pkts.length; i++) {
-                if (RTPPacketPredicate.INSTANCE.test((ByteArrayBuffer)pkts[i])) {
-                    long ssrc = pkts[i].getSSRCAsLong();
-                    AdaptiveTrackProjection adaptiveTrackProjection = (AdaptiveTrackProjection)BitrateController.this.adaptiveTrackProjectionMap.get(Long.valueOf(ssrc));
-                    if (adaptiveTrackProjection == null) {
-                        pkts[i] = null;
-                    } else {
-                        RawPacket[] ret = new RawPacket[0];
-                        try {
-                            ret = adaptiveTrackProjection.rewriteRtp(pkts[i]);
-                        } catch (RewriteException ex) {
+                BitrateController.this.firstMediaMs = BitrateController.this.clock.millis();
+            RawPacketBuffer extras = BitrateController.EXTRAS.get();
+            try {
+                for (int i = 0; i < pkts.length; i++) {
+                    if (RTPPacketPredicate.INSTANCE.test((ByteArrayBuffer)pkts[i])) {
+                        long ssrc = pkts[i].getSSRCAsLong();
+                        AdaptiveTrackProjection adaptiveTrackProjection = BitrateController.this.adaptiveTrackProjectionMap.get(ssrc);
+                        if (adaptiveTrackProjection == null) {
                             pkts[i] = null;
-                        }
-                        if (!ArrayUtils.isNullOrEmpty((Object[])ret)) {
-                            int extrasLen = ArrayUtils.isNullOrEmpty((Object[])extras) ? 0 : extras.length;
-                            RawPacket[] newExtras = new RawPacket[extrasLen + ret.length];
-                            System.arraycopy(ret, 0, newExtras, extrasLen, ret.length);
-                            if (extrasLen > 0)
-                                System.arraycopy(extras, 0, newExtras, 0, extrasLen);
-                            extras = newExtras;
+                        } else {
+                            try {
+                                adaptiveTrackProjection.rewriteRtp(pkts[i], extras);
+                            } catch (RewriteException ex) {
+                                pkts[i] = null;
+                            }
                         }
                     }
                 }
+                return extras.isEmpty() ? pkts : extras.drainInto(pkts);
+            } finally {
+                extras.clear();
             }
-            return (RawPacket[])ArrayUtils.concat((Object[])pkts, (Object[])extras);
         }
     }
 
@@ -568,7 +588,7 @@ public class BitrateController implements TransformEngine {
             long ssrc = pkt.getRTCPSSRC();
             if (ssrc < 0L)
                 return pkt;
-            AdaptiveTrackProjection adaptiveTrackProjection = (AdaptiveTrackProjection)BitrateController.this.adaptiveTrackProjectionMap.get(Long.valueOf(ssrc));
+            AdaptiveTrackProjection adaptiveTrackProjection = BitrateController.this.adaptiveTrackProjectionMap.get(ssrc);
             if (adaptiveTrackProjection != null)
                 if (!adaptiveTrackProjection.rewriteRtcp(pkt))
                     return null;
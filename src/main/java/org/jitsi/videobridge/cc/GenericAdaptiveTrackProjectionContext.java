@@ -116,7 +116,7 @@ class GenericAdaptiveTrackProjectionContext implements AdaptiveTrackProjectionCo
         return this.needsKeyframe;
     }
 
-    public RawPacket[] rewriteRtp(@NotNull RawPacket rtpPacket, RawPacketCache incomingRawPacketCache) {
+    public void rewriteRtp(@NotNull RawPacket rtpPacket, RawPacketCache incomingRawPacketCache, @NotNull RawPacketBuffer extras) {
         int sourceSequenceNumber = rtpPacket.getSequenceNumber();
         int destinationSequenceNumber = computeDestinationSequenceNumber(sourceSequenceNumber);
         if (sourceSequenceNumber != destinationSequenceNumber)
@@ -131,7 +131,6 @@ class GenericAdaptiveTrackProjectionContext implements AdaptiveTrackProjectionCo
             this.transmittedBytes += rtpPacket.getLength();
             this.transmittedPackets++;
         }
-        return EMPTY_PACKET_ARR;
     }
 
     private int computeDestinationSequenceNumber(int sourceSequenceNumber) {
@@ -0,0 +1,57 @@
+package org.jitsi.videobridge.cc;
+
+
+import java.util.Arrays;
+import org.jitsi.service.neomedia.RawPacket;
+
+public class RawPacketBuffer {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private RawPacket[] packets = new RawPacket[INITIAL_CAPACITY];
+
+    private int size = 0;
+
+    public void add(RawPacket pkt) {
+        if (this.size == this.packets.length)
+            this.packets = Arrays.<RawPacket>copyOf(this.packets, this.size * 2);
+        this.packets[this.size++] = pkt;
+    }
+
+    public RawPacket get(int index) {
+        if (index < 0 || index >= this.size)
+            throw new IndexOutOfBoundsException("index");
+        return this.packets[index];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return (this.size == 0);
+    }
+
+    public void clear() {
+        Arrays.fill((Object[])this.packets, 0, this.size, null);
+        this.size = 0;
+    }
+
+    public RawPacket[] drainInto(RawPacket[] pkts) {
+        int next = 0;
+        if (pkts != null)
+            for (int i = 0; i < pkts.length && next < this.size; i++) {
+                if (pkts[i] == null)
+                    pkts[i] = this.packets[next++];
+            }
+        if (next < this.size) {
+            int pktsLen = (pkts == null) ? 0 : pkts.length;
+            RawPacket[] newPkts = new RawPacket[pktsLen + this.size - next];
+            if (pktsLen > 0)
+                System.arraycopy(pkts, 0, newPkts, 0, pktsLen);
+            System.arraycopy(this.packets, next, newPkts, pktsLen, this.size - next);
+            pkts = newPkts;
+        }
+        clear();
+        return pkts;
+    }
+}
@@ -0,0 +1,74 @@
+package org.jitsi.videobridge.cc;
+
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jitsi.impl.neomedia.rtp.MediaStreamTrackDesc;
+import org.jitsi.utils.MediaType;
+import org.jitsi.videobridge.AbstractEndpoint;
+import org.jitsi.videobridge.ConferenceSpeechActivity;
+
+public class SpeakerOrderedTrackCatalog {
+    private static final MediaStreamTrackDesc[] NO_TRACKS = new MediaStreamTrackDesc[0];
+
+    private final ConferenceSpeechActivity speechActivity;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot = null;
+
+    public SpeakerOrderedTrackCatalog(ConferenceSpeechActivity speechActivity) {
+        this.speechActivity = Objects.<ConferenceSpeechActivity>requireNonNull(speechActivity, "speechActivity");
+    }
+
+    public void invalidate() {
+        this.version.incrementAndGet();
+    }
+
+    public Entry[] getEntries() {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot != null && snapshot.version == this.version.get())
+            return snapshot.entries;
+        synchronized (this) {
+            long version = this.version.get();
+            snapshot = this.snapshot;
+            if (snapshot != null && snapshot.version == version)
+                return snapshot.entries;
+            List<AbstractEndpoint> endpoints = this.speechActivity.getEndpoints();
+            Entry[] entries = new Entry[endpoints.size()];
+            for (int i = 0; i < entries.length; i++) {
+                AbstractEndpoint endpoint = endpoints.get(i);
+                MediaStreamTrackDesc[] tracks = endpoint.isExpired() ? NO_TRACKS : endpoint.getMediaStreamTracks(MediaType.VIDEO);
+                entries[i] = new Entry(endpoint, (tracks == null) ? NO_TRACKS : tracks);
+            }
+            this.snapshot = new Snapshot(version, entries);
+            return entries;
+        }
+    }
+
+    public static class Entry {
+        public final AbstractEndpoint endpoint;
+
+        public final String endpointId;
+
+        public final MediaStreamTrackDesc[] tracks;
+
+        private Entry(AbstractEndpoint endpoint, MediaStreamTrackDesc[] tracks) {
+            this.endpoint = endpoint;
+            this.endpointId = endpoint.getID();
+            this.tracks = tracks;
+        }
+    }
+
+    private static class Snapshot {
+        private final long version;
+
+        private final Entry[] entries;
+
+        private Snapshot(long version, Entry[] entries) {
+            this.version = version;
+            this.entries = entries;
+        }
+    }
+}
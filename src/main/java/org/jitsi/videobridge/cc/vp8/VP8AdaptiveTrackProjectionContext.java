@@ -13,12 +13,13 @@ import org.jitsi.service.neomedia.RawPacket;
 import org.jitsi.service.neomedia.format.MediaFormat;
 import org.jitsi.util.RTCPUtils;
 import org.jitsi.util.RTPUtils;
-import org.jitsi.utils.ArrayUtils;
 import org.jitsi.utils.ByteArrayBuffer;
 import org.jitsi.utils.LRUCache;
 import org.jitsi.videobridge.cc.AdaptiveTrackProjectionContext;
+import org.jitsi.videobridge.cc.RawPacketBuffer;
 import org.jitsi.videobridge.cc.RewriteException;
 import org.jitsi.videobridge.cc.RtpState;
+import org.jitsi.videobridge.util.Clock;
 
 public class VP8AdaptiveTrackProjectionContext implements AdaptiveTrackProjectionContext {
     private final Map<Long, VP8FrameProjection> vp8FrameProjectionMap = new ConcurrentHashMap<>();
@@ -37,8 +38,11 @@ public class VP8AdaptiveTrackProjectionContext implements AdaptiveTrackProjectio
 
     private final MediaFormat format;
 
-    public VP8AdaptiveTrackProjectionContext(@NotNull MediaFormat format, @NotNull RtpState rtpState) {
+    private final Clock clock;
+
+    public VP8AdaptiveTrackProjectionContext(@NotNull MediaFormat format, @NotNull RtpState rtpState, @NotNull Clock clock) {
         this.format = format;
+        this.clock = clock;
         int startingSequenceNumber = rtpState.maxSequenceNumber + 1 & 0xFFFF;
         long timestamp = rtpState.maxTimestamp + 3000L & 0xFFFFFFFFL;
         this.lastVP8FrameProjection = new VP8FrameProjection(rtpState.ssrc, startingSequenceNumber, timestamp);
@@ -71,7 +75,7 @@ public class VP8AdaptiveTrackProjectionContext implements AdaptiveTrackProjectio
                     .getSequenceNumber());
             return null;
         }
-        long nowMs = System.currentTimeMillis();
+        long nowMs = this.clock.millis();
         if (!this.vp8QualityFilter.acceptFrame(rtpPacket, incomingIndex, targetIndex, nowMs))
             return null;
         int maxSequenceNumberSeenBeforeFirstPacket = getMaxSequenceNumberOfFrame(rtpPacket
@@ -170,20 +174,19 @@ public class VP8AdaptiveTrackProjectionContext implements AdaptiveTrackProjectio
         return this.format;
     }
 
-    public RawPacket[] rewriteRtp(@NotNull RawPacket rtpPacket, RawPacketCache incomingRawPacketCache) throws RewriteException {
+    public void rewriteRtp(@NotNull RawPacket rtpPacket, RawPacketCache incomingRawPacketCache, @NotNull RawPacketBuffer extras) throws RewriteException {
         VP8FrameProjection vp8FrameProjection = lookupVP8FrameProjection(rtpPacket);
         if (vp8FrameProjection == null)
             throw new RewriteException();
-        RawPacket[] ret = vp8FrameProjection.rewriteRtp(rtpPacket, incomingRawPacketCache);
+        int extrasStart = extras.size();
+        vp8FrameProjection.rewriteRtp(rtpPacket, incomingRawPacketCache, extras);
         synchronized (this.transmittedSyncRoot) {
             this.transmittedBytes += rtpPacket.getLength();
             this.transmittedPackets++;
-            if (!ArrayUtils.isNullOrEmpty((Object[])ret))
-                for (int i = 0; i < ret.length; i++) {
-                    this.transmittedBytes += ret[i].getLength();
-                    this.transmittedPackets++;
-                }
+            for (int i = extrasStart; i < extras.size(); i++) {
+                this.transmittedBytes += extras.get(i).getLength();
+                this.transmittedPackets++;
+            }
         }
-        return ret;
     }
 }
\ No newline at end of file
@@ -1,15 +1,13 @@
 package org.jitsi.videobridge.cc.vp8;
 
 
-import java.util.ArrayList;
-import java.util.List;
 import org.jetbrains.annotations.NotNull;
 import org.jitsi.impl.neomedia.codec.video.vp8.DePacketizer;
 import org.jitsi.impl.neomedia.rtp.RawPacketCache;
 import org.jitsi.service.neomedia.RawPacket;
 import org.jitsi.util.RTPUtils;
 import org.jitsi.utils.logging.Logger;
-import org.jitsi.videobridge.cc.AdaptiveTrackProjection;
+import org.jitsi.videobridge.cc.RawPacketBuffer;
 
 public class VP8FrameProjection {
     private static final Logger logger = Logger.getLogger(VP8FrameProjection.class);
@@ -100,30 +98,25 @@ public class VP8FrameProjection {
         return this.extendedPictureId + 1 & 0x7FFF;
     }
 
-    RawPacket[] rewriteRtp(@NotNull RawPacket rtpPacket, RawPacketCache cache) {
+    void rewriteRtp(@NotNull RawPacket rtpPacket, RawPacketCache cache, @NotNull RawPacketBuffer extras) {
         int originalSequenceNumber = rtpPacket.getSequenceNumber();
         rewriteRtpInternal(rtpPacket);
         int piggyBackUntilSequenceNumber = this.vp8Frame.getMaxSequenceNumberSeenBeforeFirstPacket();
         if (piggyBackUntilSequenceNumber < 0 || originalSequenceNumber != this.vp8Frame
                 .getStartingSequenceNumber() || cache == null)
-            return AdaptiveTrackProjection.EMPTY_PACKET_ARR;
+            return;
         long vp8FrameSSRC = this.vp8Frame.getSSRCAsLong();
-        List<RawPacket> piggyBackedPackets = new ArrayList<>();
         int len = RTPUtils.getSequenceNumberDelta(piggyBackUntilSequenceNumber, originalSequenceNumber) + 1;
         if (logger.isDebugEnabled())
             logger.debug("Piggybacking " + len + " missed packets from " + originalSequenceNumber + " until " + piggyBackUntilSequenceNumber);
         for (int i = 0; i < len; i++) {
             int piggyBackedPacketSequenceNumber = originalSequenceNumber + i & 0xFFFF;
             RawPacket lastPacket = cache.get(vp8FrameSSRC, piggyBackedPacketSequenceNumber);
-            if (lastPacket != null && accept(lastPacket))
-                piggyBackedPackets.add(lastPacket);
-        }
-        if (piggyBackedPackets.size() > 0) {
-            for (RawPacket pktOut : piggyBackedPackets)
-                rewriteRtpInternal(pktOut);
-            return piggyBackedPackets.<RawPacket>toArray(new RawPacket[0]);
+            if (lastPacket != null && accept(lastPacket)) {
+                rewriteRtpInternal(lastPacket);
+                extras.add(lastPacket);
+            }
         }
-        return AdaptiveTrackProjection.EMPTY_PACKET_ARR;
     }
 
     private void rewriteRtpInternal(@NotNull RawPacket pkt) {
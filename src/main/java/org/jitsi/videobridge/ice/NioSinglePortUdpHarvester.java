@@ -0,0 +1,548 @@
+package org.jitsi.videobridge.ice;
+
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketOption;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ice4j.StackProperties;
+import org.ice4j.Transport;
+import org.ice4j.TransportAddress;
+import org.ice4j.attribute.UsernameAttribute;
+import org.ice4j.ice.Agent;
+import org.ice4j.ice.Component;
+import org.ice4j.ice.ComponentSocket;
+import org.ice4j.ice.HostCandidate;
+import org.ice4j.ice.IceMediaStream;
+import org.ice4j.ice.IceProcessingState;
+import org.ice4j.ice.LocalCandidate;
+import org.ice4j.ice.harvest.AbstractUdpListener;
+import org.ice4j.ice.harvest.CandidateHarvester;
+import org.ice4j.ice.harvest.HarvestStatistics;
+import org.ice4j.message.Message;
+import org.ice4j.socket.IceSocketWrapper;
+import org.ice4j.socket.IceUdpSocketWrapper;
+import org.ice4j.socket.MultiplexingDatagramSocket;
+import org.ice4j.socket.StunDatagramPacketFilter;
+import org.ice4j.stack.StunStack;
+import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.util.ByteArrayPool;
+
+public class NioSinglePortUdpHarvester implements CandidateHarvester {
+    private static final Logger logger = Logger.getLogger(NioSinglePortUdpHarvester.class);
+
+    private static final int BUFFER_SIZE = 1500;
+
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private static final int QUEUE_CAPACITY = 128;
+
+    private static final SocketOption<Boolean> SO_REUSEPORT;
+
+    private final TransportAddress localAddress;
+
+    private final Shard[] shards;
+
+    private final Map<String, NioCandidate> candidates = new ConcurrentHashMap<>();
+
+    private final HarvestStatistics harvestStatistics = new HarvestStatistics();
+
+    private final AtomicLong packetsDropped = new AtomicLong();
+
+    private final AtomicLong sendPacketsDropped = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    static {
+        SocketOption<Boolean> reusePort;
+        try {
+            reusePort = (SocketOption<Boolean>)StandardSocketOptions.class.getField("SO_REUSEPORT").get(null);
+        } catch (ReflectiveOperationException roe) {
+            reusePort = null;
+        }
+        SO_REUSEPORT = reusePort;
+    }
+
+    public static List<NioSinglePortUdpHarvester> createHarvesters(int port) {
+        return createHarvesters(port, 1);
+    }
+
+    public static List<NioSinglePortUdpHarvester> createHarvesters(int port, int shardCount) {
+        List<NioSinglePortUdpHarvester> harvesters = new LinkedList<>();
+        for (TransportAddress address : AbstractUdpListener.getAllowedAddresses(port)) {
+            try {
+                harvesters.add(new NioSinglePortUdpHarvester(address, shardCount));
+            } catch (IOException ioe) {
+                logger.info("Failed to create NioSinglePortUdpHarvester for address " + address + ": " + ioe);
+            }
+        }
+        return harvesters;
+    }
+
+    private static boolean isReusePortSupported() {
+        if (SO_REUSEPORT == null)
+            return false;
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            return channel.supportedOptions().contains(SO_REUSEPORT);
+        } catch (IOException ioe) {
+            return false;
+        }
+    }
+
+    public NioSinglePortUdpHarvester(TransportAddress localAddress) throws IOException {
+        this(localAddress, 1);
+    }
+
+    public NioSinglePortUdpHarvester(TransportAddress localAddress, int shardCount) throws IOException {
+        if (StackProperties.getBoolean("org.ice4j.BIND_WILDCARD", false))
+            localAddress = new TransportAddress((InetAddress)null, localAddress.getPort(), localAddress.getTransport());
+        this.localAddress = localAddress;
+        if (shardCount > 1 && !isReusePortSupported()) {
+            logger.warn("SO_REUSEPORT is not supported, using a single shard for " + localAddress);
+            shardCount = 1;
+        }
+        this.shards = new Shard[Math.max(shardCount, 1)];
+        try {
+            for (int i = 0; i < this.shards.length; i++)
+                this.shards[i] = new Shard(i);
+        } catch (IOException ioe) {
+            for (Shard shard : this.shards) {
+                if (shard != null)
+                    shard.closeChannel();
+            }
+            throw ioe;
+        }
+        for (Shard shard : this.shards)
+            shard.start();
+    }
+
+    public void close() {
+        this.closed = true;
+        for (Shard shard : this.shards)
+            shard.selector.wakeup();
+    }
+
+    public int getShardCount() {
+        return this.shards.length;
+    }
+
+    public long getPacketsDropped() {
+        return this.packetsDropped.get();
+    }
+
+    public long getSendPacketsDropped() {
+        return this.sendPacketsDropped.get();
+    }
+
+    private static String getUfrag(byte[] buf, int off, int len) {
+        if (buf == null || buf.length < off + len || len < 20)
+            return null;
+        if ((buf[off + 4] & 0xFF) != 0x21 || (buf[off + 5] & 0xFF) != 0x12 || (buf[off + 6] & 0xFF) != 0xA4 || (buf[off + 7] & 0xFF) != 0x42)
+            return null;
+        try {
+            Message stunMessage = Message.decode(buf, (char)off, (char)len);
+            if (stunMessage.getMessageType() != '\001')
+                return null;
+            UsernameAttribute usernameAttribute = (UsernameAttribute)stunMessage.getAttribute('\006');
+            if (usernameAttribute == null)
+                return null;
+            return (new String(usernameAttribute.getUsername())).split(":")[0];
+        } catch (Exception e) {
+            if (logger.isDebugEnabled())
+                logger.debug("Failed to extract local ufrag: " + e);
+            return null;
+        }
+    }
+
+    public Collection<LocalCandidate> harvest(Component component) {
+        IceMediaStream stream = component.getParentStream();
+        Agent agent = stream.getParentAgent();
+        String ufrag = agent.getLocalUfrag();
+        if (stream.getComponentCount() != 1 || agent.getStreamCount() != 1) {
+            logger.info("More than one Component for an Agent, cannot harvest.");
+            return new LinkedList<>();
+        }
+        NioCandidate candidate = new NioCandidate(component, ufrag);
+        this.candidates.put(ufrag, candidate);
+        component.addLocalCandidate(candidate);
+        List<LocalCandidate> harvested = new ArrayList<>(1);
+        harvested.add(candidate);
+        return harvested;
+    }
+
+    public HarvestStatistics getHarvestStatistics() {
+        return this.harvestStatistics;
+    }
+
+    public boolean isHostHarvester() {
+        return true;
+    }
+
+    private class Shard {
+        private final int index;
+
+        private final DatagramChannel channel;
+
+        private final Selector selector;
+
+        private final Map<SocketAddress, NioSocket> sockets = new ConcurrentHashMap<>();
+
+        private Shard(int index) throws IOException {
+            this.index = index;
+            this.channel = DatagramChannel.open();
+            int receiveBufferSize = StackProperties.getInt(AbstractUdpListener.SO_RCVBUF_PNAME, -1);
+            Selector selector = null;
+            try {
+                if (NioSinglePortUdpHarvester.this.shards.length > 1)
+                    this.channel.setOption(SO_REUSEPORT, Boolean.valueOf(true));
+                if (receiveBufferSize > 0)
+                    this.channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+                this.channel.bind(NioSinglePortUdpHarvester.this.localAddress);
+                this.channel.configureBlocking(false);
+                selector = Selector.open();
+                this.channel.register(selector, SelectionKey.OP_READ);
+            } catch (IOException ioe) {
+                if (selector != null)
+                    selector.close();
+                this.channel.close();
+                throw ioe;
+            }
+            this.selector = selector;
+            logger.info("Initialized NioSinglePortUdpHarvester shard " + index + " with address " + NioSinglePortUdpHarvester.this.localAddress + ". Receive buffer size " + this.channel
+                    .getOption(StandardSocketOptions.SO_RCVBUF) + ((receiveBufferSize > 0) ? (" (asked for " + receiveBufferSize + ")") : ""));
+        }
+
+        private void start() {
+            Thread thread = new Thread(this::run, NioSinglePortUdpHarvester.class.getName() + " thread for " + NioSinglePortUdpHarvester.this.localAddress + " shard " + this.index);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        private void closeChannel() {
+            try {
+                this.selector.close();
+            } catch (IOException ioe) {
+                logger.warn("Failed to close selector: " + ioe);
+            }
+            try {
+                this.channel.close();
+            } catch (IOException ioe) {
+                logger.warn("Failed to close channel: " + ioe);
+            }
+        }
+
+        private void run() {
+            ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            byte[][] buffers = new byte[MAX_BATCH_SIZE][];
+            int[] lengths = new int[MAX_BATCH_SIZE];
+            InetSocketAddress[] remoteAddresses = new InetSocketAddress[MAX_BATCH_SIZE];
+            NioSocket[] targets = new NioSocket[MAX_BATCH_SIZE];
+            try {
+                while (!NioSinglePortUdpHarvester.this.closed) {
+                    int batchSize = 0;
+                    try {
+                        this.selector.select();
+                        this.selector.selectedKeys().clear();
+                        while (batchSize < MAX_BATCH_SIZE) {
+                            receiveBuffer.clear();
+                            InetSocketAddress remoteAddress = (InetSocketAddress)this.channel.receive(receiveBuffer);
+                            if (remoteAddress == null)
+                                break;
+                            receiveBuffer.flip();
+                            int len = receiveBuffer.remaining();
+                            byte[] buf = ByteArrayPool.getBuffer(BUFFER_SIZE);
+                            receiveBuffer.get(buf, 0, len);
+                            buffers[batchSize] = buf;
+                            lengths[batchSize] = len;
+                            remoteAddresses[batchSize] = remoteAddress;
+                            batchSize++;
+                        }
+                    } catch (IOException ioe) {
+                        if (!NioSinglePortUdpHarvester.this.closed)
+                            logger.error("Failed to receive from socket: " + ioe);
+                        break;
+                    } finally {
+                        dispatch(buffers, lengths, remoteAddresses, targets, batchSize);
+                    }
+                }
+            } finally {
+                for (NioSocket socket : new ArrayList<>(this.sockets.values()))
+                    socket.close();
+                closeChannel();
+            }
+        }
+
+        private void dispatch(byte[][] buffers, int[] lengths, InetSocketAddress[] remoteAddresses, NioSocket[] targets, int batchSize) {
+            for (int i = 0; i < batchSize; i++) {
+                NioSocket socket = this.sockets.get(remoteAddresses[i]);
+                if (socket == null)
+                    socket = maybeAcceptNewSession(buffers[i], lengths[i], remoteAddresses[i]);
+                if (socket == null)
+                    ByteArrayPool.returnBuffer(buffers[i]);
+                targets[i] = socket;
+                remoteAddresses[i] = null;
+            }
+            for (int i = 0; i < batchSize; i++) {
+                if (targets[i] != null)
+                    targets[i].addBuffers(buffers, lengths, targets, i, batchSize);
+                buffers[i] = null;
+            }
+        }
+
+        private NioSocket maybeAcceptNewSession(byte[] buf, int len, InetSocketAddress remoteAddress) {
+            String ufrag = getUfrag(buf, 0, len);
+            if (ufrag == null)
+                return null;
+            NioCandidate candidate = NioSinglePortUdpHarvester.this.candidates.get(ufrag);
+            if (candidate == null)
+                return null;
+            NioSocket socket = null;
+            try {
+                socket = new NioSocket(this, remoteAddress);
+                candidate.addSocket(socket, remoteAddress);
+                this.sockets.put(remoteAddress, socket);
+                return socket;
+            } catch (IOException ioe) {
+                logger.info("Failed to handle new socket: " + ioe);
+                if (socket != null)
+                    socket.close();
+            }
+            return null;
+        }
+    }
+
+    private class NioCandidate extends HostCandidate {
+        private final String ufrag;
+
+        private boolean freed = false;
+
+        private final Map<SocketAddress, IceSocketWrapper> candidateSockets = new HashMap<>();
+
+        private final Map<SocketAddress, DatagramSocket> sockets = new HashMap<>();
+
+        private NioCandidate(Component component, String ufrag) {
+            super(NioSinglePortUdpHarvester.this.localAddress, component);
+            this.ufrag = ufrag;
+        }
+
+        public void free() {
+            synchronized (this) {
+                if (this.freed)
+                    return;
+                this.freed = true;
+            }
+            NioSinglePortUdpHarvester.this.candidates.remove(this.ufrag, this);
+            synchronized (this.sockets) {
+                StunStack stunStack = getStunStack();
+                for (Map.Entry<SocketAddress, DatagramSocket> e : this.sockets.entrySet()) {
+                    DatagramSocket socket = e.getValue();
+                    if (stunStack != null) {
+                        TransportAddress localAddress = new TransportAddress(socket.getLocalAddress(), socket.getLocalPort(), Transport.UDP);
+                        TransportAddress remoteAddress = new TransportAddress((InetSocketAddress)e.getKey(), Transport.UDP);
+                        stunStack.removeSocket(localAddress, remoteAddress);
+                    }
+                    socket.close();
+                }
+                this.sockets.clear();
+            }
+            synchronized (this.candidateSockets) {
+                for (IceSocketWrapper wrapper : this.candidateSockets.values())
+                    wrapper.close();
+                this.candidateSockets.clear();
+            }
+            super.free();
+        }
+
+        private synchronized void addSocket(DatagramSocket socket, InetSocketAddress remoteAddress) throws IOException {
+            if (this.freed)
+                throw new IOException("Candidate freed");
+            Component component = getParentComponent();
+            if (component == null)
+                throw new IOException("No parent component");
+            IceProcessingState state = component.getParentStream().getParentAgent().getState();
+            if (state == IceProcessingState.FAILED)
+                throw new IOException("Cannot add socket to an Agent in state FAILED.");
+            if (state != null && state.isOver() && logger.isDebugEnabled())
+                logger.debug("Adding a socket to a completed Agent, state=" + state);
+            MultiplexingDatagramSocket multiplexing = new MultiplexingDatagramSocket(socket);
+            IceSocketWrapper candidateSocket = new IceUdpSocketWrapper(multiplexing);
+            IceSocketWrapper stunSocket = new IceUdpSocketWrapper(multiplexing.getSocket(new StunDatagramPacketFilter()));
+            component.getParentStream().getParentAgent().getStunStack().addSocket(stunSocket, new TransportAddress(remoteAddress, Transport.UDP));
+            ComponentSocket componentSocket = component.getComponentSocket();
+            if (componentSocket != null)
+                componentSocket.add(multiplexing);
+            IceSocketWrapper oldSocket;
+            synchronized (this.candidateSockets) {
+                oldSocket = this.candidateSockets.put(remoteAddress, candidateSocket);
+            }
+            if (oldSocket != null) {
+                logger.warn("Replacing the socket for remote address " + remoteAddress);
+                oldSocket.close();
+            }
+            synchronized (this.sockets) {
+                this.sockets.put(remoteAddress, multiplexing);
+            }
+        }
+
+        protected IceSocketWrapper getCandidateIceSocketWrapper(SocketAddress remoteAddress) {
+            synchronized (this.candidateSockets) {
+                return this.candidateSockets.get(remoteAddress);
+            }
+        }
+    }
+
+    private class NioSocket extends DatagramSocket {
+        private final Shard shard;
+
+        private final InetSocketAddress remoteAddress;
+
+        private final byte[][] queue = new byte[QUEUE_CAPACITY][];
+
+        private final int[] lengths = new int[QUEUE_CAPACITY];
+
+        private int head = 0;
+
+        private int size = 0;
+
+        private boolean closed = false;
+
+        private NioSocket(Shard shard, InetSocketAddress remoteAddress) throws SocketException {
+            super((SocketAddress)null);
+            this.shard = shard;
+            this.remoteAddress = remoteAddress;
+        }
+
+        private void addBuffers(byte[][] buffers, int[] lengths, NioSocket[] targets, int from, int to) {
+            int dropped = 0;
+            synchronized (this.queue) {
+                boolean wasEmpty = (this.size == 0);
+                for (int i = from; i < to; i++) {
+                    if (targets[i] != this)
+                        continue;
+                    targets[i] = null;
+                    if (this.closed) {
+                        ByteArrayPool.returnBuffer(buffers[i]);
+                        continue;
+                    }
+                    if (this.size == QUEUE_CAPACITY) {
+                        ByteArrayPool.returnBuffer(this.queue[this.head]);
+                        this.queue[this.head] = null;
+                        this.head = (this.head + 1) % QUEUE_CAPACITY;
+                        this.size--;
+                        dropped++;
+                    }
+                    int tail = (this.head + this.size) % QUEUE_CAPACITY;
+                    this.queue[tail] = buffers[i];
+                    this.lengths[tail] = lengths[i];
+                    this.size++;
+                }
+                if (wasEmpty && this.size > 0)
+                    this.queue.notify();
+            }
+            if (dropped > 0) {
+                long packetsDropped = NioSinglePortUdpHarvester.this.packetsDropped.getAndAdd(dropped);
+                if (packetsDropped / 1000L != (packetsDropped + dropped) / 1000L || packetsDropped == 0L)
+                    logger.info("Dropped " + (packetsDropped + dropped) + " packets because a socket queue was full.");
+            }
+        }
+
+        public InetAddress getLocalAddress() {
+            return NioSinglePortUdpHarvester.this.localAddress.getAddress();
+        }
+
+        public int getLocalPort() {
+            return NioSinglePortUdpHarvester.this.localAddress.getPort();
+        }
+
+        public SocketAddress getLocalSocketAddress() {
+            return NioSinglePortUdpHarvester.this.localAddress;
+        }
+
+        public SocketAddress getRemoteSocketAddress() {
+            return this.remoteAddress;
+        }
+
+        public InetAddress getInetAddress() {
+            return this.remoteAddress.getAddress();
+        }
+
+        public int getPort() {
+            return this.remoteAddress.getPort();
+        }
+
+        public void close() {
+            synchronized (this.queue) {
+                if (this.closed)
+                    return;
+                this.closed = true;
+                while (this.size > 0) {
+                    ByteArrayPool.returnBuffer(this.queue[this.head]);
+                    this.queue[this.head] = null;
+                    this.head = (this.head + 1) % QUEUE_CAPACITY;
+                    this.size--;
+                }
+                this.queue.notifyAll();
+            }
+            this.shard.sockets.remove(this.remoteAddress, this);
+            super.close();
+        }
+
+        public void receive(DatagramPacket p) throws IOException {
+            byte[] buf;
+            int len;
+            synchronized (this.queue) {
+                while (this.size == 0) {
+                    if (this.closed)
+                        throw new SocketException("Socket closed");
+                    try {
+                        this.queue.wait();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+                buf = this.queue[this.head];
+                len = this.lengths[this.head];
+                this.queue[this.head] = null;
+                this.head = (this.head + 1) % QUEUE_CAPACITY;
+                this.size--;
+            }
+            try {
+                byte[] data = p.getData();
+                if (data == null || data.length - p.getOffset() < len)
+                    throw new IOException("packet buffer not available");
+                System.arraycopy(buf, 0, data, p.getOffset(), len);
+                p.setLength(len);
+                p.setSocketAddress(this.remoteAddress);
+            } finally {
+                ByteArrayPool.returnBuffer(buf);
+            }
+        }
+
+        public void send(DatagramPacket p) throws IOException {
+            if (this.shard.channel.send(ByteBuffer.wrap(p.getData(), p.getOffset(), p.getLength()), p.getSocketAddress()) == 0) {
+                long sendPacketsDropped = NioSinglePortUdpHarvester.this.sendPacketsDropped.incrementAndGet();
+                if (sendPacketsDropped == 1L || sendPacketsDropped % 1000L == 0L)
+                    logger.warn("Dropped " + sendPacketsDropped + " outgoing packets because the socket send buffer was full.");
+            }
+        }
+    }
+}
@@ -2,16 +2,17 @@ package org.jitsi.videobridge.octo;
 
 
 import java.net.DatagramPacket;
+import java.net.SocketAddress;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.jitsi.impl.neomedia.rtp.MediaStreamTrackDesc;
 import org.jitsi.service.neomedia.AudioMediaStream;
 import org.jitsi.service.neomedia.MediaStream;
 import org.jitsi.service.neomedia.event.CsrcAudioLevelListener;
-import org.jitsi.util.RTCPUtils;
 import org.jitsi.utils.MediaType;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.AbstractEndpoint;
@@ -19,8 +20,8 @@ import org.jitsi.videobridge.AudioChannelAudioLevelListener;
 import org.jitsi.videobridge.Channel;
 import org.jitsi.videobridge.Conference;
 import org.jitsi.videobridge.Content;
+import org.jitsi.videobridge.EncodedMessage;
 import org.jitsi.videobridge.RtpChannel;
-import org.jitsi.videobridge.RtpChannelDatagramFilter;
 import org.jitsi.videobridge.xmpp.MediaStreamTrackFactory;
 import org.jitsi.xmpp.extensions.colibri.ColibriConferenceIQ;
 import org.jitsi.xmpp.extensions.colibri.SourcePacketExtension;
@@ -37,10 +38,6 @@ public class OctoChannel extends RtpChannel {
 
     private OctoTransportManager transportManager;
 
-    private RtpChannelDatagramFilter rtpFilter = new OctoDatagramPacketFilter(false);
-
-    private RtpChannelDatagramFilter rtcpFilter = new OctoDatagramPacketFilter(true);
-
     private final Logger logger;
 
     private final OctoEndpoints octoEndpoints;
@@ -103,10 +100,6 @@ public class OctoChannel extends RtpChannel {
         return this.mediaType;
     }
 
-    public RtpChannelDatagramFilter getDatagramFilter(boolean rtcp) {
-        return rtcp ? this.rtcpFilter : this.rtpFilter;
-    }
-
     protected void configureStream(MediaStream stream) {
         if (stream != null && stream instanceof AudioMediaStream)
             ((AudioMediaStream)stream)
@@ -131,49 +124,24 @@ public class OctoChannel extends RtpChannel {
         return true;
     }
 
-    private class OctoDatagramPacketFilter extends RtpChannelDatagramFilter {
-        private boolean rtcp;
-
-        private OctoDatagramPacketFilter(boolean rtcp) {
-            super(OctoChannel.this, rtcp);
-            this.rtcp = rtcp;
-        }
-
-        public boolean accept(DatagramPacket p) {
-            String packetCid = OctoPacket.readConferenceId(p
-                    .getData(), p.getOffset(), p.getLength());
-            if (!packetCid.equals(OctoChannel.this.conferenceId))
-                return false;
-            MediaType packetMediaType = OctoPacket.readMediaType(p
-                    .getData(), p.getOffset(), p.getLength());
-            if (OctoChannel.this.mediaType.equals(packetMediaType)) {
-                boolean packetIsRtcp = RTCPUtils.isRtcp(p
-                        .getData(), p
-                        .getOffset() + 8, p
-                        .getLength() - 8);
-                return (this.rtcp == packetIsRtcp);
-            }
-            if (MediaType.DATA.equals(packetMediaType) && OctoChannel.this.handleData)
-                OctoChannel.this.handleDataPacket(p);
-            return false;
-        }
-    }
-
-    private void handleDataPacket(DatagramPacket p) {
-        byte[] msgBytes = new byte[p.getLength() - 8];
-        System.arraycopy(p
-                .getData(), p.getOffset() + 8, msgBytes, 0, msgBytes.length);
-        String msg = new String(msgBytes, StandardCharsets.UTF_8);
+    void handleDataPacket(byte[] buf, int off, int len, SocketAddress source) {
+        if (!this.handleData)
+            return;
+        String msg = new String(buf, off, len, StandardCharsets.UTF_8);
         if (this.logger.isDebugEnabled())
             this.logger.debug("Received a message in an Octo data packet: " + msg);
-        this.octoEndpoints.messageTransport.onMessage(this, msg);
+        this.octoEndpoints.messageTransport.onMessage(source, msg);
+    }
+
+    void setSubscription(SocketAddress remoteRelay, Map<String, Integer> maxEncodingIndices) {
+        getOctoTransportManager().setSubscription(remoteRelay, maxEncodingIndices);
     }
 
     public AbstractEndpoint getEndpoint(long ssrc) {
         return (this.octoEndpoints == null) ? null : this.octoEndpoints.findEndpoint(ssrc);
     }
 
-    void sendMessage(String msg, String sourceEndpointId) {
+    void sendMessage(EncodedMessage msg, String sourceEndpointId) {
         getOctoTransportManager()
                 .sendMessage(msg, sourceEndpointId, getConferenceId());
     }
@@ -0,0 +1,244 @@
+package org.jitsi.videobridge.octo;
+
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.ice4j.socket.DelegatingDatagramSocket;
+import org.jitsi.util.RTCPUtils;
+import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.util.ByteArrayPool;
+import org.jitsi.videobridge.util.CopyOnWriteLongMap;
+
+class OctoDemultiplexer implements Runnable {
+    private static final Logger logger = Logger.getLogger(OctoDemultiplexer.class);
+
+    private static final int RECEIVE_BUFFER_SIZE = 1500;
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final DatagramSocket socket;
+
+    private final CopyOnWriteLongMap<Target> targets = new CopyOnWriteLongMap<>();
+
+    private final AtomicLong packetsDropped = new AtomicLong();
+
+    private final AtomicLong packetsUnmatched = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    OctoDemultiplexer(DatagramSocket socket) {
+        this.socket = socket;
+    }
+
+    private static long key(int conferenceId, int mediaTypeId) {
+        return (long)conferenceId << 2L | (mediaTypeId & 0x3);
+    }
+
+    void start(String name) {
+        Thread thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        this.closed = true;
+    }
+
+    long getPacketsDropped() {
+        return this.packetsDropped.get();
+    }
+
+    long getPacketsUnmatched() {
+        return this.packetsUnmatched.get();
+    }
+
+    Target register(OctoChannel channel, DatagramSocket delegate) throws SocketException {
+        int conferenceId;
+        try {
+            conferenceId = OctoPacket.parseConferenceId(channel.getConferenceId());
+        } catch (NumberFormatException nfe) {
+            throw new SocketException("Invalid Octo conference ID: " + channel.getConferenceId());
+        }
+        long key = key(conferenceId, OctoPacket.getMediaTypeId(channel.getMediaType()));
+        Target target = new Target(channel, key, delegate);
+        Target oldTarget = this.targets.put(key, target);
+        if (oldTarget != null && oldTarget.channel != channel)
+            logger.warn("Replacing the Octo channel for conference " + channel.getConferenceId() + " and media type " + channel
+
+                    .getMediaType());
+        return target;
+    }
+
+    private void unregister(Target target) {
+        this.targets.remove(target.key, target);
+    }
+
+    public void run() {
+        byte[] buf = null;
+        while (!this.closed) {
+            if (buf == null)
+                buf = ByteArrayPool.getBuffer(RECEIVE_BUFFER_SIZE);
+            DatagramPacket p = new DatagramPacket(buf, 0, buf.length);
+            try {
+                this.socket.receive(p);
+            } catch (SocketTimeoutException ste) {
+                continue;
+            } catch (IOException ioe) {
+                if (this.closed || this.socket.isClosed())
+                    break;
+                logger.warn("Failed to receive an Octo packet: " + ioe);
+                continue;
+            }
+            buf = null;
+            demux(p);
+        }
+        ByteArrayPool.returnBuffer(buf);
+        logger.info("Octo demultiplexer stopped.");
+    }
+
+    private void demux(DatagramPacket p) {
+        byte[] buf = p.getData();
+        int off = p.getOffset();
+        int len = p.getLength();
+        if (!OctoPacket.verifyMinLength(buf, off, len, 8)) {
+            this.packetsUnmatched.incrementAndGet();
+            ByteArrayPool.returnBuffer(buf);
+            return;
+        }
+        int conferenceId = OctoPacket.readConferenceIdAsInt(buf, off, len);
+        int mediaTypeId = OctoPacket.readMediaTypeId(buf, off, len);
+        if (mediaTypeId == 2) {
+            Target target = this.targets.get(key(conferenceId, 1));
+            if (target != null) {
+                target.channel.handleDataPacket(buf, off + 8, len - 8, p.getSocketAddress());
+            } else {
+                this.packetsUnmatched.incrementAndGet();
+            }
+            ByteArrayPool.returnBuffer(buf);
+            return;
+        }
+        Target target = this.targets.get(key(conferenceId, mediaTypeId));
+        if (target == null) {
+            this.packetsUnmatched.incrementAndGet();
+            ByteArrayPool.returnBuffer(buf);
+            return;
+        }
+        p.setData(buf, off + 8, len - 8);
+        boolean rtcp = RTCPUtils.isRtcp(buf, off + 8, len - 8);
+        if (!(rtcp ? target.rtcpQueue : target.rtpQueue).offer(p)) {
+            this.packetsDropped.incrementAndGet();
+            ByteArrayPool.returnBuffer(buf);
+        }
+    }
+
+    private static void release(BlockingQueue<DatagramPacket> queue) {
+        DatagramPacket p;
+        while ((p = queue.poll()) != null)
+            ByteArrayPool.returnBuffer(p.getData());
+    }
+
+    class Target {
+        private final OctoChannel channel;
+
+        private final long key;
+
+        private final BlockingQueue<DatagramPacket> rtpQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final BlockingQueue<DatagramPacket> rtcpQueue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        private final DatagramSocket delegate;
+
+        private Target(OctoChannel channel, long key, DatagramSocket delegate) {
+            this.channel = channel;
+            this.key = key;
+            this.delegate = delegate;
+        }
+
+        DatagramSocket createSocket(boolean rtcp, OctoTransportManager transportManager) throws SocketException {
+            return new QueueDatagramSocket(this, rtcp ? this.rtcpQueue : this.rtpQueue, transportManager);
+        }
+
+        void close() {
+            OctoDemultiplexer.this.unregister(this);
+            OctoDemultiplexer.release(this.rtpQueue);
+            OctoDemultiplexer.release(this.rtcpQueue);
+        }
+    }
+
+    private static class QueueDatagramSocket extends DelegatingDatagramSocket {
+        private final Target target;
+
+        private final BlockingQueue<DatagramPacket> queue;
+
+        private final OctoTransportManager transportManager;
+
+        private volatile int soTimeout = 0;
+
+        private volatile boolean closed = false;
+
+        private QueueDatagramSocket(Target target, BlockingQueue<DatagramPacket> queue, OctoTransportManager transportManager) throws SocketException {
+            super(target.delegate);
+            this.target = target;
+            this.queue = queue;
+            this.transportManager = transportManager;
+        }
+
+        public void receive(DatagramPacket p) throws IOException {
+            DatagramPacket received;
+            try {
+                int soTimeout = this.soTimeout;
+                received = (soTimeout > 0) ? this.queue.poll(soTimeout, TimeUnit.MILLISECONDS) : this.queue.take();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new SocketException("Interrupted while receiving an Octo packet.");
+            }
+            if (this.closed) {
+                if (received != null)
+                    ByteArrayPool.returnBuffer(received.getData());
+                throw new SocketException("Socket closed");
+            }
+            if (received == null)
+                throw new SocketTimeoutException();
+            byte[] buf = p.getData();
+            int len = received.getLength();
+            if (buf == null || buf.length - p.getOffset() < len) {
+                p.setData(new byte[len], 0, len);
+                buf = p.getData();
+            }
+            System.arraycopy(received.getData(), received.getOffset(), buf, p.getOffset(), len);
+            p.setLength(len);
+            ByteArrayPool.returnBuffer(received.getData());
+            p.setSocketAddress(received.getSocketAddress());
+        }
+
+        public void send(DatagramPacket p) throws IOException {
+            this.transportManager.sendPacket(p);
+        }
+
+        public int getSoTimeout() {
+            return this.soTimeout;
+        }
+
+        public void setSoTimeout(int timeout) {
+            this.soTimeout = timeout;
+        }
+
+        public boolean isClosed() {
+            return this.closed;
+        }
+
+        public void close() {
+            if (this.closed)
+                return;
+            this.closed = true;
+            this.target.close();
+        }
+    }
+}
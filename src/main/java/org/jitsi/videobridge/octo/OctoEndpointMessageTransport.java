@@ -1,11 +1,16 @@
 package org.jitsi.videobridge.octo;
 
 
+import java.net.SocketAddress;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.AbstractEndpoint;
 import org.jitsi.videobridge.AbstractEndpointMessageTransport;
 import org.jitsi.videobridge.Conference;
+import org.jitsi.videobridge.EncodedMessage;
+import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 
 public class OctoEndpointMessageTransport extends AbstractEndpointMessageTransport {
@@ -28,7 +33,7 @@ public class OctoEndpointMessageTransport extends AbstractEndpointMessageTranspo
         return (String)id;
     }
 
-    protected void sendMessageToEndpoints(String msg, List<AbstractEndpoint> endpoints) {
+    protected void sendMessageToEndpoints(EncodedMessage msg, List<AbstractEndpoint> endpoints) {
         Conference conference = getConference();
         if (conference != null)
             conference.sendMessage(msg, endpoints, false);
@@ -58,6 +63,24 @@ public class OctoEndpointMessageTransport extends AbstractEndpointMessageTranspo
         logUnexpectedMessage(jsonObject.toJSONString());
     }
 
+    protected void onOctoSubscriptionChangedEvent(Object src, JSONObject jsonObject) {
+        Object o = jsonObject.get("endpoints");
+        if (!(src instanceof SocketAddress) || !(o instanceof JSONArray)) {
+            logUnexpectedMessage(jsonObject.toJSONString());
+            return;
+        }
+        Object indices = jsonObject.get("maxEncodingIndices");
+        Map<String, Integer> maxEncodingIndices = new HashMap<>();
+        for (Object endpointId : (JSONArray)o) {
+            if (!(endpointId instanceof String))
+                continue;
+            Object idx = (indices instanceof JSONObject) ? ((JSONObject)indices).get(endpointId) : null;
+            maxEncodingIndices.put((String)endpointId,
+                    Integer.valueOf((idx instanceof Number) ? ((Number)idx).intValue() : Integer.MAX_VALUE));
+        }
+        this.octoEndpoints.subscriptionReceived((SocketAddress)src, maxEncodingIndices);
+    }
+
     private void logUnexpectedMessage(String msg) {
         logger.warn("Received an unexpected message type through Octo: " + msg);
     }
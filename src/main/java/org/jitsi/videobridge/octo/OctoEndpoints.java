@@ -1,18 +1,37 @@
 package org.jitsi.videobridge.octo;
 
 
+import java.net.SocketAddress;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.jitsi.impl.neomedia.rtp.MediaStreamTrackDesc;
 import org.jitsi.utils.MediaType;
+import org.jitsi.utils.concurrent.ExecutorFactory;
 import org.jitsi.utils.logging.Logger;
 import org.jitsi.videobridge.AbstractEndpoint;
+import org.jitsi.videobridge.Channel;
 import org.jitsi.videobridge.Conference;
+import org.jitsi.videobridge.Content;
+import org.jitsi.videobridge.EncodedMessage;
+import org.jitsi.videobridge.EndpointMessageBuilder;
+import org.jitsi.videobridge.VideoChannel;
 
 public class OctoEndpoints {
     private static final Logger classLogger = Logger.getLogger(OctoEndpoints.class);
 
+    private static final long SUBSCRIPTION_REFRESH_MS = 5000L;
+
+    private static final long SUBSCRIPTION_CHANGE_DELAY_MS = 50L;
+
+    private static final ScheduledExecutorService scheduler = ExecutorFactory.createSingleThreadScheduledExecutor("OctoSubscriptions", 60, TimeUnit.SECONDS);
+
     private Conference conference;
 
     private OctoChannel audioChannel;
@@ -21,6 +40,14 @@ public class OctoEndpoints {
 
     private final Object endpointsSyncRoot = new Object();
 
+    private final Object subscriptionSyncRoot = new Object();
+
+    private Map<String, Integer> advertisedSubscription;
+
+    private volatile ScheduledFuture<?> subscriptionRefresh;
+
+    private final AtomicBoolean subscriptionChangePending = new AtomicBoolean();
+
     final OctoEndpointMessageTransport messageTransport = new OctoEndpointMessageTransport(this);
 
     private final Logger logger;
@@ -60,6 +87,7 @@ public class OctoEndpoints {
                 this.videoChannel = channel;
                 if (channel != null)
                     octoEndpoints.forEach(e -> e.addChannel(this.videoChannel));
+                updateSubscriptionRefresh(channel != null);
             } else if (MediaType.AUDIO.equals(mediaType)) {
                 if (this.audioChannel != null) {
                     this.logger.error("Replacing an existing audio channel");
@@ -112,7 +140,70 @@ public class OctoEndpoints {
         }
     }
 
+    private void updateSubscriptionRefresh(boolean enabled) {
+        synchronized (this.subscriptionSyncRoot) {
+            if (enabled && this.subscriptionRefresh == null) {
+                this.subscriptionRefresh = scheduler.scheduleWithFixedDelay(() -> advertiseSubscription(true), 0L, SUBSCRIPTION_REFRESH_MS, TimeUnit.MILLISECONDS);
+            } else if (!enabled && this.subscriptionRefresh != null) {
+                this.subscriptionRefresh.cancel(false);
+                this.subscriptionRefresh = null;
+                this.advertisedSubscription = null;
+            }
+        }
+    }
+
+    public void subscriptionChanged() {
+        if (this.subscriptionChangePending.compareAndSet(false, true))
+            scheduler.schedule(() -> {
+                this.subscriptionChangePending.set(false);
+                advertiseSubscription(false);
+            }, SUBSCRIPTION_CHANGE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void advertiseSubscription(boolean refresh) {
+        if (this.subscriptionRefresh == null)
+            return;
+        Map<String, Integer> subscription = getSubscription();
+        synchronized (this.subscriptionSyncRoot) {
+            if (this.subscriptionRefresh == null)
+                return;
+            if (!refresh && subscription.equals(this.advertisedSubscription))
+                return;
+            this.advertisedSubscription = subscription;
+        }
+        sendMessage(EndpointMessageBuilder.createOctoSubscriptionChangedEvent(subscription));
+    }
+
+    private Map<String, Integer> getSubscription() {
+        Map<String, Integer> subscription = new HashMap<>();
+        for (Content content : this.conference.getContents()) {
+            if (!MediaType.VIDEO.equals(content.getMediaType()))
+                continue;
+            for (Channel channel : content.getChannels()) {
+                if (channel instanceof VideoChannel && !channel.isExpired())
+                    ((VideoChannel)channel).getBitrateController().getSubscribedEndpoints()
+                            .forEach((id, idx) -> subscription.merge(id, idx, Math::max));
+            }
+        }
+        if (!subscription.isEmpty())
+            subscription.keySet().retainAll(
+                    (Set<String>)getOctoEndpoints().stream()
+                            .map(AbstractEndpoint::getID)
+                            .collect(Collectors.toSet()));
+        return subscription;
+    }
+
+    void subscriptionReceived(SocketAddress remoteRelay, Map<String, Integer> maxEncodingIndices) {
+        OctoChannel channel = this.videoChannel;
+        if (channel != null)
+            channel.setSubscription(remoteRelay, maxEncodingIndices);
+    }
+
     public void sendMessage(String msg) {
+        sendMessage(new EncodedMessage(msg));
+    }
+
+    public void sendMessage(EncodedMessage msg) {
         OctoChannel channel = this.audioChannel;
         if (channel == null)
             channel = this.videoChannel;
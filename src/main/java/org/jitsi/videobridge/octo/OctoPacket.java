@@ -2,6 +2,7 @@ package org.jitsi.videobridge.octo;
 
 import org.jitsi.util.RTPUtils;
 import org.jitsi.utils.MediaType;
+import org.jitsi.videobridge.util.ByteArrayPool;
 
 public class OctoPacket {
     public static final int OCTO_HEADER_LENGTH = 8;
@@ -12,7 +13,7 @@ public class OctoPacket {
 
     public static final int OCTO_MEDIA_TYPE_DATA = 2;
 
-    private static int getMediaTypeId(MediaType mediaType) {
+    static int getMediaTypeId(MediaType mediaType) {
         switch (mediaType) {
             case AUDIO:
                 return 0;
@@ -24,6 +25,22 @@ public class OctoPacket {
         return -1;
     }
 
+    public static byte[] allocate(int payloadLength) {
+        return ByteArrayPool.getBuffer(8 + payloadLength);
+    }
+
+    public static void writeHeaders(byte[] buf, int off, boolean r, int mediaTypeId, int s, int conferenceId, int endpointId) {
+        if (buf == null || off < 0 || buf.length - off < 8)
+            throw new IllegalArgumentException("Invalid Octo packet.");
+        buf[off] = 0;
+        if (r)
+            buf[off] = (byte)(buf[off] | 0x80);
+        buf[off] = (byte)(buf[off] | (mediaTypeId & 0x3) << 5);
+        buf[off] = (byte)(buf[off] | (s & 0x3) << 3);
+        RTPUtils.writeUint24(buf, off + 1, conferenceId);
+        RTPUtils.writeInt(buf, off + 4, endpointId);
+    }
+
     public static void writeHeaders(byte[] buf, int off, boolean r, MediaType mediaType, int s, String conferenceId, String endpointId) {
         buf[off] = 0;
         if (r)
@@ -40,6 +57,20 @@ public class OctoPacket {
         return Integer.toHexString(cid);
     }
 
+    public static int readConferenceIdAsInt(byte[] buf, int off, int len) {
+        assertMinLen(buf, off, len);
+        return RTPUtils.readUint24AsInt(buf, off + 1);
+    }
+
+    public static int readMediaTypeId(byte[] buf, int off, int len) {
+        assertMinLen(buf, off, len);
+        return (buf[off] & 0x60) >> 5;
+    }
+
+    public static int parseConferenceId(String conferenceId) {
+        return Integer.parseInt(conferenceId, 16);
+    }
+
     public static MediaType readMediaType(byte[] buf, int off, int len) {
         assertMinLen(buf, off, len);
         int mediaType = (buf[off] & 0x60) >> 5;
@@ -67,8 +98,7 @@ public class OctoPacket {
 
     public static void writeConferenceId(String conferenceId, byte[] buf, int off, int len) {
         assertMinLen(buf, off, len);
-        int cid = Integer.parseInt(conferenceId, 16);
-        RTPUtils.writeUint24(buf, off + 1, cid);
+        RTPUtils.writeUint24(buf, off + 1, parseConferenceId(conferenceId));
     }
 
     public static void writeEndpointId(String endpointId, byte[] buf, int off, int len) {
@@ -82,7 +112,7 @@ public class OctoPacket {
             throw new IllegalArgumentException("Invalid Octo packet.");
     }
 
-    private static boolean verifyMinLength(byte[] buf, int off, int len, int minLen) {
+    static boolean verifyMinLength(byte[] buf, int off, int len, int minLen) {
         return (buf != null && off >= 0 && len >= minLen && minLen >= 0 && off + len < buf.length);
     }
 }
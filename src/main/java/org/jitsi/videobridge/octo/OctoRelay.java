@@ -3,10 +3,17 @@ package org.jitsi.videobridge.octo;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.ice4j.socket.MultiplexingDatagramSocket;
 import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.util.LatencyHistogram;
 
 public class OctoRelay {
     private static final Logger logger = Logger.getLogger(OctoRelay.class);
@@ -15,6 +22,18 @@ public class OctoRelay {
 
     private MultiplexingDatagramSocket socket;
 
+    private final OctoDemultiplexer demultiplexer;
+
+    private final Map<SocketAddress, OctoRelaySender> senders = new ConcurrentHashMap<>();
+
+    private final AtomicLong packetsNotSubscribed = new AtomicLong();
+
+    private final AtomicLong retiredSendPacketsDropped = new AtomicLong();
+
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+
+    private final AtomicLong packetsLayerNotSubscribed = new AtomicLong();
+
     private String relayId;
 
     private String publicAddress;
@@ -30,12 +49,17 @@ public class OctoRelay {
         this.socket = new MultiplexingDatagramSocket(s, true) {
             public void setReceiveBufferSize(int size) {}
         };
+        this.demultiplexer = new OctoDemultiplexer(s);
+        this.demultiplexer.start("OctoDemultiplexer-" + port);
         this.port = port;
         String id = address + ":" + port;
         setRelayId(id);
     }
 
     void stop() {
+        this.demultiplexer.stop();
+        this.senders.values().forEach(OctoRelaySender::stop);
+        this.senders.clear();
         try {
             this.socket.close();
         } catch (Exception e) {
@@ -57,6 +81,77 @@ public class OctoRelay {
         setRelayId(id);
     }
 
+    OctoRelaySender acquireSender(SocketAddress remoteAddress) {
+        return this.senders.compute(remoteAddress, (a, sender) -> {
+            if (sender == null) {
+                sender = new OctoRelaySender(a, this.socket, this.sendLatency);
+                sender.start();
+            }
+            sender.references++;
+            return sender;
+        });
+    }
+
+    void releaseSender(OctoRelaySender sender) {
+        this.senders.computeIfPresent(sender.getRemoteAddress(), (a, s) -> {
+            if (s != sender || --s.references > 0)
+                return s;
+            s.stop();
+            this.retiredSendPacketsDropped.addAndGet(s.getPacketsDropped());
+            return null;
+        });
+    }
+
+    public Collection<OctoRelaySender> getSenders() {
+        return new ArrayList<>(this.senders.values());
+    }
+
+    public int getSendQueueDepth() {
+        int depth = 0;
+        for (OctoRelaySender sender : this.senders.values())
+            depth += sender.getQueueDepth();
+        return depth;
+    }
+
+    public long getReceiveQueuePacketsDropped() {
+        return this.demultiplexer.getPacketsDropped();
+    }
+
+    public long getReceivePacketsUnmatched() {
+        return this.demultiplexer.getPacketsUnmatched();
+    }
+
+    public long getSendQueuePacketsDropped() {
+        long dropped = this.retiredSendPacketsDropped.get();
+        for (OctoRelaySender sender : this.senders.values())
+            dropped += sender.getPacketsDropped();
+        return dropped;
+    }
+
+    public LatencyHistogram.Snapshot getSendLatency() {
+        return this.sendLatency.snapshot();
+    }
+
+    void packetNotSubscribed() {
+        this.packetsNotSubscribed.incrementAndGet();
+    }
+
+    public long getPacketsNotSubscribed() {
+        return this.packetsNotSubscribed.get();
+    }
+
+    void packetLayerNotSubscribed() {
+        this.packetsLayerNotSubscribed.incrementAndGet();
+    }
+
+    public long getPacketsLayerNotSubscribed() {
+        return this.packetsLayerNotSubscribed.get();
+    }
+
+    OctoDemultiplexer getDemultiplexer() {
+        return this.demultiplexer;
+    }
+
     public MultiplexingDatagramSocket getSocket() {
         return this.socket;
     }
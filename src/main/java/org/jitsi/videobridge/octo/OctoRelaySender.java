@@ -0,0 +1,159 @@
+package org.jitsi.videobridge.octo;
+
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.util.LatencyHistogram;
+import org.jitsi.videobridge.util.SharedPacket;
+
+public class OctoRelaySender implements Runnable {
+    private static final Logger logger = Logger.getLogger(OctoRelaySender.class);
+
+    static final int QUEUE_CAPACITY = 1024;
+
+    private static final int MAX_BATCH_SIZE = 64;
+
+    private final SocketAddress remoteAddress;
+
+    private final DatagramSocket socket;
+
+    private final SharedPacket[] queue = new SharedPacket[QUEUE_CAPACITY];
+
+    private final long[] enqueueTimes = new long[QUEUE_CAPACITY];
+
+    private final LatencyHistogram sendLatency;
+
+    private int head = 0;
+
+    private int size = 0;
+
+    private boolean closed = false;
+
+    int references = 0;
+
+    private final AtomicLong packetsSent = new AtomicLong();
+
+    private final AtomicLong packetsDropped = new AtomicLong();
+
+    private final AtomicLong sendErrors = new AtomicLong();
+
+    OctoRelaySender(SocketAddress remoteAddress, DatagramSocket socket, LatencyHistogram sendLatency) {
+        this.remoteAddress = remoteAddress;
+        this.socket = socket;
+        this.sendLatency = sendLatency;
+    }
+
+    void start() {
+        Thread thread = new Thread(this, "OctoRelaySender-" + this.remoteAddress);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        synchronized (this.queue) {
+            this.closed = true;
+            this.queue.notifyAll();
+        }
+    }
+
+    public SocketAddress getRemoteAddress() {
+        return this.remoteAddress;
+    }
+
+    public int getQueueDepth() {
+        synchronized (this.queue) {
+            return this.size;
+        }
+    }
+
+    public long getPacketsSent() {
+        return this.packetsSent.get();
+    }
+
+    public long getPacketsDropped() {
+        return this.packetsDropped.get();
+    }
+
+    public long getSendErrors() {
+        return this.sendErrors.get();
+    }
+
+    void enqueue(SharedPacket pkt) {
+        synchronized (this.queue) {
+            if (this.closed)
+                return;
+            if (this.size == QUEUE_CAPACITY) {
+                this.queue[this.head].release();
+                this.queue[this.head] = null;
+                this.head = (this.head + 1) % QUEUE_CAPACITY;
+                this.size--;
+                this.packetsDropped.incrementAndGet();
+            }
+            int tail = (this.head + this.size) % QUEUE_CAPACITY;
+            this.queue[tail] = pkt.retain();
+            this.enqueueTimes[tail] = System.nanoTime();
+            this.size++;
+            if (this.size == 1)
+                this.queue.notify();
+        }
+    }
+
+    public void run() {
+        SharedPacket[] batch = new SharedPacket[MAX_BATCH_SIZE];
+        long[] batchEnqueueTimes = new long[MAX_BATCH_SIZE];
+        DatagramPacket p = new DatagramPacket(new byte[0], 0, this.remoteAddress);
+        while (true) {
+            int batchSize = 0;
+            synchronized (this.queue) {
+                while (this.size == 0 && !this.closed) {
+                    try {
+                        this.queue.wait();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        releaseAll();
+                        return;
+                    }
+                }
+                if (this.closed) {
+                    releaseAll();
+                    return;
+                }
+                while (this.size > 0 && batchSize < MAX_BATCH_SIZE) {
+                    batchEnqueueTimes[batchSize] = this.enqueueTimes[this.head];
+                    batch[batchSize++] = this.queue[this.head];
+                    this.queue[this.head] = null;
+                    this.head = (this.head + 1) % QUEUE_CAPACITY;
+                    this.size--;
+                }
+            }
+            for (int i = 0; i < batchSize; i++) {
+                SharedPacket pkt = batch[i];
+                batch[i] = null;
+                p.setData(pkt.getBuffer(), 0, pkt.getLength());
+                try {
+                    this.socket.send(p);
+                    this.packetsSent.incrementAndGet();
+                    this.sendLatency.record(System.nanoTime() - batchEnqueueTimes[i]);
+                } catch (IOException ioe) {
+                    if (this.sendErrors.getAndIncrement() % 1000L == 0L)
+                        logger.warn("Failed to send an Octo packet to " + this.remoteAddress + ": " + ioe);
+                } finally {
+                    pkt.release();
+                }
+            }
+        }
+    }
+
+    private void releaseAll() {
+        while (this.size > 0) {
+            this.queue[this.head].release();
+            this.queue[this.head] = null;
+            this.head = (this.head + 1) % QUEUE_CAPACITY;
+            this.size--;
+        }
+    }
+}
@@ -6,25 +6,36 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.net.SocketException;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import net.java.sip.communicator.util.ServiceUtils;
-import org.ice4j.socket.DatagramPacketFilter;
-import org.ice4j.socket.DelegatingDatagramSocket;
 import org.ice4j.socket.MultiplexingDatagramSocket;
+import org.jitsi.impl.neomedia.rtp.MediaStreamTrackReceiver;
+import org.jitsi.impl.neomedia.rtp.RTPEncodingDesc;
 import org.jitsi.impl.neomedia.transform.NullSrtpControl;
 import org.jitsi.service.neomedia.DefaultStreamConnector;
+import org.jitsi.service.neomedia.MediaStream;
 import org.jitsi.service.neomedia.MediaStreamTarget;
+import org.jitsi.service.neomedia.RawPacket;
 import org.jitsi.service.neomedia.SrtpControl;
 import org.jitsi.service.neomedia.StreamConnector;
+import org.jitsi.util.RTCPUtils;
+import org.jitsi.util.RTPUtils;
 import org.jitsi.utils.MediaType;
 import org.jitsi.utils.StringUtils;
 import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.AbstractEndpoint;
 import org.jitsi.videobridge.Channel;
+import org.jitsi.videobridge.Conference;
+import org.jitsi.videobridge.EncodedMessage;
+import org.jitsi.videobridge.RtpChannel;
 import org.jitsi.videobridge.TransportManager;
+import org.jitsi.videobridge.util.ByteArrayPool;
+import org.jitsi.videobridge.util.CachedClock;
+import org.jitsi.videobridge.util.SharedPacket;
 import org.jitsi.xmpp.extensions.jingle.IceUdpTransportPacketExtension;
 
 public class OctoTransportManager extends TransportManager {
@@ -34,14 +45,26 @@ public class OctoTransportManager extends TransportManager {
 
     private static final int SO_TIMEOUT = 1000;
 
+    private static final long SUBSCRIPTION_TIMEOUT_MS = 15000L;
+
+    private static final ThreadLocal<RawPacket> ENCODING_LOOKUP_PACKET = ThreadLocal.withInitial(RawPacket::new);
+
     private OctoChannel channel;
 
+    private final Conference conference;
+
     private OctoRelay octoRelay;
 
     private DatagramSocket rtpSocket;
 
     private DatagramSocket rtcpSocket;
 
+    private OctoDemultiplexer.Target demuxTarget;
+
+    private final int conferenceId;
+
+    private final int mediaTypeId;
+
     private static SocketAddress relayIdToSocketAddress(String relayId) {
         if (relayId == null || !relayId.contains(":"))
             return null;
@@ -56,16 +79,23 @@ public class OctoTransportManager extends TransportManager {
 
     private final SrtpControl srtpControl = (SrtpControl)new NullSrtpControl();
 
-    private List<SocketAddress> remoteRelays;
+    private volatile List<OctoRelaySender> relaySenders = new ArrayList<>();
+
+    private final Map<SocketAddress, Subscription> subscriptions = new ConcurrentHashMap<>();
 
     private final Logger logger;
 
     private final Object socketsSyncRoot = new Object();
 
+    private final Object relaySendersSyncRoot = new Object();
+
+    private boolean closed = false;
+
     public OctoTransportManager(Channel channel) {
         if (!(channel instanceof OctoChannel))
             throw new IllegalArgumentException("channel is not an OctoChannel");
         this.channel = (OctoChannel)channel;
+        this.conference = channel.getContent().getConference();
         this
                 .logger = Logger.getLogger(classLogger, channel
 
@@ -73,6 +103,8 @@ public class OctoTransportManager extends TransportManager {
         OctoRelayService relayService = (OctoRelayService)ServiceUtils.getService(channel
                 .getBundleContext(), OctoRelayService.class);
         this.octoRelay = Objects.<OctoRelay>requireNonNull(relayService.getRelay());
+        this.conferenceId = OctoPacket.parseConferenceId(this.channel.getConferenceId());
+        this.mediaTypeId = OctoPacket.getMediaTypeId(this.channel.getMediaType());
     }
 
     public void close() {
@@ -83,6 +115,12 @@ public class OctoTransportManager extends TransportManager {
             if (this.rtcpSocket != null)
                 this.rtcpSocket.close();
         }
+        synchronized (this.relaySendersSyncRoot) {
+            this.closed = true;
+            List<OctoRelaySender> relaySenders = this.relaySenders;
+            this.relaySenders = new ArrayList<>();
+            relaySenders.forEach(this.octoRelay::releaseSender);
+        }
     }
 
     public StreamConnector getStreamConnector(Channel channel) {
@@ -99,38 +137,14 @@ public class OctoTransportManager extends TransportManager {
         synchronized (this.socketsSyncRoot) {
             if (this.rtpSocket != null)
                 return;
-            MultiplexingDatagramSocket relaySocket = this.octoRelay.getSocket();
-            this
-                    .rtpSocket = createOctoSocket((DatagramSocket)relaySocket
-                    .getSocket((DatagramPacketFilter)this.channel.getDatagramFilter(false)));
-            this
-                    .rtcpSocket = createOctoSocket((DatagramSocket)relaySocket
-                    .getSocket((DatagramPacketFilter)this.channel.getDatagramFilter(true)));
+            this.demuxTarget = this.octoRelay.getDemultiplexer().register(this.channel, (DatagramSocket)this.octoRelay.getSocket());
+            this.rtpSocket = this.demuxTarget.createSocket(false, this);
+            this.rtpSocket.setSoTimeout(1000);
+            this.rtcpSocket = this.demuxTarget.createSocket(true, this);
+            this.rtcpSocket.setSoTimeout(1000);
         }
     }
 
-    private DatagramSocket createOctoSocket(DatagramSocket socket) throws SocketException {
-        DelegatingDatagramSocket delegatingDatagramSocket = new DelegatingDatagramSocket(socket) {
-            public void receive(DatagramPacket p) throws IOException {
-                super.receive(p);
-                try {
-                    p.setData(p
-                            .getData(), p
-                            .getOffset() + 8, p
-                            .getLength() - 8);
-                } catch (Exception e) {
-                    OctoTransportManager.this.logger.error("Failed to strip Octo header while receiving a packet:" + e);
-                }
-            }
-
-            public void send(DatagramPacket p) throws IOException {
-                OctoTransportManager.this.doSend(p, true);
-            }
-        };
-        delegatingDatagramSocket.setSoTimeout(1000);
-        return (DatagramSocket)delegatingDatagramSocket;
-    }
-
     public MediaStreamTarget getStreamTarget(Channel channel) {
         MultiplexingDatagramSocket multiplexingDatagramSocket = this.octoRelay.getSocket();
         InetAddress inetAddress = multiplexingDatagramSocket.getLocalAddress();
@@ -168,69 +182,128 @@ public class OctoTransportManager extends TransportManager {
             }
             remoteRelays.add(socketAddress);
         }
-        this.remoteRelays = remoteRelays;
+        synchronized (this.relaySendersSyncRoot) {
+            if (this.closed)
+                return;
+            List<OctoRelaySender> relaySenders = new ArrayList<>(remoteRelays.size());
+            for (SocketAddress remoteRelay : remoteRelays)
+                relaySenders.add(this.octoRelay.acquireSender(remoteRelay));
+            List<OctoRelaySender> oldRelaySenders = this.relaySenders;
+            this.relaySenders = relaySenders;
+            oldRelaySenders.forEach(this.octoRelay::releaseSender);
+        }
+        this.subscriptions.keySet().retainAll(remoteRelays);
     }
 
-    private void doSend(DatagramPacket p, boolean addHeaders) throws IOException {
-        if (addHeaders)
-            p = addOctoHeaders(p);
-        MultiplexingDatagramSocket multiplexingDatagramSocket = this.octoRelay.getSocket();
-        IOException exception = null;
-        int exceptions = 0;
-        if (this.remoteRelays != null)
-            for (SocketAddress remoteAddress : this.remoteRelays) {
-                try {
-                    p.setSocketAddress(remoteAddress);
-                    multiplexingDatagramSocket.send(p);
-                } catch (IOException ioe) {
-                    exceptions++;
-                    exception = ioe;
-                }
-            }
-        if (exception != null) {
-            this.logger.warn("Caught " + exceptions + " while trying to send a packet.");
-            throw exception;
-        }
+    void setSubscription(SocketAddress remoteRelay, Map<String, Integer> maxEncodingIndices) {
+        if (this.logger.isDebugEnabled())
+            this.logger.debug("Octo relay " + remoteRelay + " subscribed to " + maxEncodingIndices);
+        this.subscriptions.put(remoteRelay, new Subscription(maxEncodingIndices, CachedClock.INSTANCE.monotonicMillis()));
     }
 
-    private DatagramPacket addOctoHeaders(DatagramPacket p) {
+    void sendPacket(DatagramPacket p) {
+        List<OctoRelaySender> relaySenders = this.relaySenders;
+        if (relaySenders.isEmpty())
+            return;
         byte[] buf = p.getData();
         int off = p.getOffset();
         int len = p.getLength();
-        if (off >= 8) {
-            off -= 8;
-        } else if (buf.length >= len + 8) {
-            System.arraycopy(buf, off, buf, 8, len);
-            off = 0;
-        } else {
-            byte[] newBuf = new byte[len + 8];
-            System.arraycopy(buf, off, newBuf, 8, len);
-            buf = newBuf;
-            off = 0;
+        String sourceEndpointId = null;
+        int encodingIndex = -1;
+        if (!this.subscriptions.isEmpty() && isVideoRtp(buf, off, len)) {
+            long ssrc = RTPUtils.readInt(buf, off + 8) & 0xFFFFFFFFL;
+            Channel channel = this.conference.findChannelByReceiveSSRC(ssrc, MediaType.VIDEO);
+            AbstractEndpoint endpoint = (channel == null) ? null : channel.getEndpoint(ssrc);
+            if (endpoint != null) {
+                sourceEndpointId = endpoint.getID();
+                encodingIndex = getEncodingIndex(channel, buf, off, len);
+            }
         }
-        len += 8;
-        p.setData(buf, off, len);
-        OctoPacket.writeHeaders(buf, off, true, this.channel
+        long now = (sourceEndpointId == null) ? -1L : CachedClock.INSTANCE.monotonicMillis();
+        SharedPacket pkt = null;
+        for (OctoRelaySender relaySender : relaySenders) {
+            Subscription subscription = (sourceEndpointId == null) ? null : getSubscription(relaySender, now);
+            if (subscription != null) {
+                Integer maxEncodingIndex = subscription.maxEncodingIndices.get(sourceEndpointId);
+                if (maxEncodingIndex == null) {
+                    this.octoRelay.packetNotSubscribed();
+                    continue;
+                }
+                if (encodingIndex > maxEncodingIndex.intValue()) {
+                    this.octoRelay.packetLayerNotSubscribed();
+                    continue;
+                }
+            }
+            if (pkt == null) {
+                byte[] octoBuf = OctoPacket.allocate(len);
+                System.arraycopy(buf, off, octoBuf, 8, len);
+                OctoPacket.writeHeaders(octoBuf, 0, true, this.mediaTypeId, 0, this.conferenceId, -1);
+                pkt = new SharedPacket(octoBuf, 8 + len, ByteArrayPool::returnBuffer);
+            }
+            relaySender.enqueue(pkt);
+        }
+        if (pkt != null)
+            pkt.release();
+    }
 
-                .getMediaType(), 0, this.channel
+    private boolean isVideoRtp(byte[] buf, int off, int len) {
+        return (this.mediaTypeId == OctoPacket.OCTO_MEDIA_TYPE_VIDEO && len >= 12 &&
+                !RTCPUtils.isRtcp(buf, off, len));
+    }
 
-                .getConferenceId(), "ffffffff");
-        return p;
+    private static int getEncodingIndex(Channel channel, byte[] buf, int off, int len) {
+        if (!(channel instanceof RtpChannel))
+            return -1;
+        MediaStream stream = ((RtpChannel)channel).getStream();
+        MediaStreamTrackReceiver receiver = (stream == null) ? null : stream.getMediaStreamTrackReceiver();
+        if (receiver == null)
+            return -1;
+        RawPacket pkt = ENCODING_LOOKUP_PACKET.get();
+        pkt.setBuffer(buf);
+        pkt.setOffset(off);
+        pkt.setLength(len);
+        try {
+            RTPEncodingDesc encoding = receiver.findRTPEncodingDesc(pkt);
+            return (encoding == null) ? -1 : encoding.getIndex();
+        } finally {
+            pkt.setBuffer(null);
+        }
     }
 
-    void sendMessage(String msg, String sourceEndpointId, String conferenceId) {
+    private Subscription getSubscription(OctoRelaySender relaySender, long now) {
+        Subscription subscription = this.subscriptions.get(relaySender.getRemoteAddress());
+        return (subscription == null || now - subscription.receivedMs > SUBSCRIPTION_TIMEOUT_MS) ? null : subscription;
+    }
+
+    private static void enqueue(List<OctoRelaySender> relaySenders, SharedPacket pkt) {
+        for (OctoRelaySender relaySender : relaySenders)
+            relaySender.enqueue(pkt);
+        pkt.release();
+    }
+
+    void sendMessage(EncodedMessage msg, String sourceEndpointId, String conferenceId) {
+        List<OctoRelaySender> relaySenders = this.relaySenders;
+        if (relaySenders.isEmpty())
+            return;
         if (StringUtils.isNullOrEmpty(sourceEndpointId))
             sourceEndpointId = "ffffffff";
         if (this.logger.isDebugEnabled())
             this.logger.debug("Sending a message through Octo: " + msg);
-        byte[] msgBytes = msg.getBytes(StandardCharsets.UTF_8);
-        byte[] buf = new byte[msgBytes.length + 8];
+        byte[] msgBytes = msg.getBytes();
+        byte[] buf = OctoPacket.allocate(msgBytes.length);
         System.arraycopy(msgBytes, 0, buf, 8, msgBytes.length);
         OctoPacket.writeHeaders(buf, 0, true, MediaType.DATA, 0, conferenceId, sourceEndpointId);
-        try {
-            doSend(new DatagramPacket(buf, 0, buf.length), false);
-        } catch (IOException ioe) {
-            this.logger.error("Failed to send Octo data message: ", ioe);
+        enqueue(relaySenders, new SharedPacket(buf, 8 + msgBytes.length, ByteArrayPool::returnBuffer));
+    }
+
+    private static class Subscription {
+        private final Map<String, Integer> maxEncodingIndices;
+
+        private final long receivedMs;
+
+        private Subscription(Map<String, Integer> maxEncodingIndices, long receivedMs) {
+            this.maxEncodingIndices = maxEncodingIndices;
+            this.receivedMs = receivedMs;
         }
     }
 }
@@ -1,9 +1,12 @@
 package org.jitsi.videobridge.rest;
 
 import java.util.Objects;
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.api.WriteCallback;
 import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.EncodedMessage;
 import org.jitsi.videobridge.Endpoint;
 
 public class ColibriWebSocket extends WebSocketAdapter {
@@ -13,11 +16,29 @@ public class ColibriWebSocket extends WebSocketAdapter {
 
     private final Endpoint endpoint;
 
+    private final WriteCallback writeCallback = new WriteCallback() {
+        public void writeFailed(Throwable t) {
+            ColibriWebSocket.logger.warn("Failed to send a message to " + ColibriWebSocket.this.endpoint
+                    .getID() + ": " + t);
+        }
+
+        public void writeSuccess() {}
+    };
+
     ColibriWebSocket(ColibriWebSocketServlet servlet, Endpoint endpoint) {
         this.servlet = servlet;
         this.endpoint = Objects.<Endpoint>requireNonNull(endpoint, "endpoint");
     }
 
+    public void sendString(EncodedMessage message) {
+        RemoteEndpoint remote = getRemote();
+        if (remote == null) {
+            logger.warn("Failed to send a message to " + this.endpoint.getID() + ": the web socket is not connected.");
+            return;
+        }
+        remote.sendString(message.getMessage(), this.writeCallback);
+    }
+
     public void onWebSocketText(String message) {
         if (logger.isDebugEnabled())
             logger.debug("Received text from " + this.endpoint.getID() + ": " + message);
@@ -16,11 +16,16 @@ import org.jitsi.utils.MediaType;
 import org.jitsi.videobridge.Channel;
 import org.jitsi.videobridge.Conference;
 import org.jitsi.videobridge.Content;
+import org.jitsi.videobridge.IceUdpTransportManager;
 import org.jitsi.videobridge.RtpChannel;
 import org.jitsi.videobridge.VideoChannel;
 import org.jitsi.videobridge.Videobridge;
+import org.jitsi.videobridge.octo.OctoRelay;
 import org.jitsi.videobridge.octo.OctoRelayService;
+import org.jitsi.videobridge.util.ByteArrayPool;
+import org.jitsi.videobridge.util.LatencyHistogram;
 import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
 import org.osgi.framework.BundleContext;
 
 public class VideobridgeStatistics extends Statistics {
@@ -116,6 +121,46 @@ public class VideobridgeStatistics extends Statistics {
 
     private static final String TOTAL_PACKETS_SENT_OCTO = "total_packets_sent_octo";
 
+    private static final String TOTAL_BITRATE_REALLOCATIONS = "total_bitrate_reallocations";
+
+    private static final String BITRATE_REALLOCATION_P50_US = "bitrate_reallocation_p50_us";
+
+    private static final String BITRATE_REALLOCATION_P99_US = "bitrate_reallocation_p99_us";
+
+    private static final String BITRATE_REALLOCATION_MAX_US = "bitrate_reallocation_max_us";
+
+    private static final String CONFERENCE_BITRATE_REALLOCATION = "conference_bitrate_reallocation";
+
+    private static final String TOTAL_SCTP_PACKETS_DROPPED = "total_sctp_packets_dropped";
+
+    private static final String TOTAL_SINGLE_PORT_RECEIVE_DROPPED_PACKETS = "total_single_port_receive_dropped_packets";
+
+    private static final String TOTAL_SINGLE_PORT_SEND_DROPPED_PACKETS = "total_single_port_send_dropped_packets";
+
+    private static final String OCTO_SEND_QUEUE_DEPTH = "octo_send_queue_depth";
+
+    private static final String TOTAL_OCTO_SEND_QUEUE_DROPPED_PACKETS = "total_octo_send_queue_dropped_packets";
+
+    private static final String TOTAL_OCTO_RECEIVE_QUEUE_DROPPED_PACKETS = "total_octo_receive_queue_dropped_packets";
+
+    private static final String TOTAL_OCTO_RECEIVE_UNMATCHED_PACKETS = "total_octo_receive_unmatched_packets";
+
+    private static final String TOTAL_OCTO_PACKETS_NOT_SUBSCRIBED = "total_octo_packets_not_subscribed";
+
+    private static final String TOTAL_OCTO_PACKETS_LAYER_NOT_SUBSCRIBED = "total_octo_packets_layer_not_subscribed";
+
+    private static final String OCTO_SEND_PACKET_RATE = "octo_send_packet_rate";
+
+    private static final String BUFFER_POOL_HITS = "buffer_pool_hits";
+
+    private static final String BUFFER_POOL_MISSES = "buffer_pool_misses";
+
+    private static final String BUFFER_POOL_OUTSTANDING = "buffer_pool_outstanding";
+
+    private static final String OCTO_SEND_LATENCY_P50_US = "octo_send_latency_p50_us";
+
+    private static final String OCTO_SEND_LATENCY_P99_US = "octo_send_latency_p99_us";
+
     public static final String USED_MEMORY = "used_memory";
 
     public static final String VIDEOCHANNELS = "videochannels";
@@ -231,9 +276,23 @@ public class VideobridgeStatistics extends Statistics {
         long totalBytesSentOcto = 0L;
         long totalPacketsReceivedOcto = 0L;
         long totalPacketsSentOcto = 0L;
+        long totalSctpPacketsDropped = 0L;
+        long totalBitrateReallocations = 0L;
+        long[] bitrateReallocationLatencyCounts = null;
+        long bitrateReallocationLatencyNanos = 0L;
+        JSONArray conferenceBitrateReallocationJson = new JSONArray();
         BundleContext bundleContext = StatsManagerBundleActivator.getBundleContext();
         OctoRelayService relayService = (OctoRelayService)ServiceUtils.getService(bundleContext, OctoRelayService.class);
         String relayId = (relayService == null) ? null : relayService.getRelayId();
+        OctoRelay octoRelay = (relayService == null) ? null : relayService.getRelay();
+        int octoSendQueueDepth = (octoRelay == null) ? 0 : octoRelay.getSendQueueDepth();
+        long totalOctoSendQueueDroppedPackets = (octoRelay == null) ? 0L : octoRelay.getSendQueuePacketsDropped();
+        long totalOctoReceiveQueueDroppedPackets = (octoRelay == null) ? 0L : octoRelay.getReceiveQueuePacketsDropped();
+        long totalOctoReceiveUnmatchedPackets = (octoRelay == null) ? 0L : octoRelay.getReceivePacketsUnmatched();
+        long totalOctoPacketsNotSubscribed = (octoRelay == null) ? 0L : octoRelay.getPacketsNotSubscribed();
+        long totalOctoPacketsLayerNotSubscribed = (octoRelay == null) ? 0L : octoRelay.getPacketsLayerNotSubscribed();
+        LatencyHistogram.Snapshot octoSendLatency = (octoRelay == null) ? null : octoRelay.getSendLatency();
+        ByteArrayPool.logLeaks();
         for (Videobridge videobridge : Videobridge.getVideobridges(bundleContext)) {
             Videobridge.Statistics jvbStats = videobridge.getStatistics();
             totalConferencesCreated += jvbStats.totalConferencesCreated.get();
@@ -270,6 +329,12 @@ public class VideobridgeStatistics extends Statistics {
             totalBytesSentOcto += jvbStats.totalBytesSentOcto.get();
             totalPacketsReceivedOcto += jvbStats.totalPacketsReceivedOcto.get();
             totalPacketsSentOcto += jvbStats.totalPacketsSentOcto.get();
+            totalSctpPacketsDropped += jvbStats.totalSctpPacketsDropped.get();
+            totalBitrateReallocations += jvbStats.totalBitrateReallocations.get();
+            LatencyHistogram.Snapshot bitrateReallocationLatency = jvbStats.bitrateReallocationLatency.snapshot();
+            bitrateReallocationLatencyCounts = bitrateReallocationLatency.addTo(bitrateReallocationLatencyCounts);
+            bitrateReallocationLatencyNanos = Math.max(bitrateReallocationLatencyNanos, bitrateReallocationLatency
+                    .getDurationNanos());
             for (Conference conference : videobridge.getConferences()) {
                 if (conference.includeInStatistics()) {
                     conferences++;
@@ -279,6 +344,19 @@ public class VideobridgeStatistics extends Statistics {
                         largestConferenceSize = conferenceEndpoints;
                     int idx = (conferenceEndpoints < conferenceSizes.length) ? conferenceEndpoints : (conferenceSizes.length - 1);
                     conferenceSizes[idx] = conferenceSizes[idx] + 1;
+                    LatencyHistogram.Snapshot conferenceReallocationLatency = conference.getStatistics().bitrateReallocationLatency.snapshot();
+                    if (conferenceReallocationLatency.getCount() > 0L) {
+                        JSONObject conferenceReallocationJson = new JSONObject();
+                        conferenceReallocationJson.put("id", conference.getID());
+                        conferenceReallocationJson.put("reallocations", Long.valueOf(conferenceReallocationLatency.getCount()));
+                        conferenceReallocationJson.put("p50_us",
+                                Long.valueOf(conferenceReallocationLatency.getPercentileMicros(50.0D)));
+                        conferenceReallocationJson.put("p99_us",
+                                Long.valueOf(conferenceReallocationLatency.getPercentileMicros(99.0D)));
+                        conferenceReallocationJson.put("max_us",
+                                Long.valueOf(conferenceReallocationLatency.getPercentileMicros(100.0D)));
+                        conferenceBitrateReallocationJson.add(conferenceReallocationJson);
+                    }
                     for (Content content : conference.getContents()) {
                         MediaType mediaType = content.getMediaType();
                         int contentChannelCount = content.getChannelCount();
@@ -423,6 +501,42 @@ public class VideobridgeStatistics extends Statistics {
             unlockedSetStat("total_packets_received_octo",
                     Long.valueOf(totalPacketsReceivedOcto));
             unlockedSetStat("total_packets_sent_octo", Long.valueOf(totalPacketsSentOcto));
+            unlockedSetStat("total_sctp_packets_dropped", Long.valueOf(totalSctpPacketsDropped));
+            unlockedSetStat("total_bitrate_reallocations", Long.valueOf(totalBitrateReallocations));
+            if (bitrateReallocationLatencyCounts != null) {
+                LatencyHistogram.Snapshot bitrateReallocationLatency = new LatencyHistogram.Snapshot(bitrateReallocationLatencyCounts, bitrateReallocationLatencyNanos);
+                unlockedSetStat("bitrate_reallocation_p50_us",
+                        Long.valueOf(bitrateReallocationLatency.getPercentileMicros(50.0D)));
+                unlockedSetStat("bitrate_reallocation_p99_us",
+                        Long.valueOf(bitrateReallocationLatency.getPercentileMicros(99.0D)));
+                unlockedSetStat("bitrate_reallocation_max_us",
+                        Long.valueOf(bitrateReallocationLatency.getPercentileMicros(100.0D)));
+            }
+            unlockedSetStat("conference_bitrate_reallocation", conferenceBitrateReallocationJson);
+            unlockedSetStat("total_single_port_receive_dropped_packets",
+                    Long.valueOf(IceUdpTransportManager.getNioSinglePortPacketsDropped()));
+            unlockedSetStat("total_single_port_send_dropped_packets",
+                    Long.valueOf(IceUdpTransportManager.getNioSinglePortSendPacketsDropped()));
+            unlockedSetStat("octo_send_queue_depth", Integer.valueOf(octoSendQueueDepth));
+            unlockedSetStat("total_octo_send_queue_dropped_packets",
+                    Long.valueOf(totalOctoSendQueueDroppedPackets));
+            unlockedSetStat("total_octo_receive_queue_dropped_packets",
+                    Long.valueOf(totalOctoReceiveQueueDroppedPackets));
+            unlockedSetStat("total_octo_receive_unmatched_packets",
+                    Long.valueOf(totalOctoReceiveUnmatchedPackets));
+            unlockedSetStat("total_octo_packets_not_subscribed", Long.valueOf(totalOctoPacketsNotSubscribed));
+            unlockedSetStat("total_octo_packets_layer_not_subscribed",
+                    Long.valueOf(totalOctoPacketsLayerNotSubscribed));
+            unlockedSetStat("buffer_pool_hits", Long.valueOf(ByteArrayPool.getHits()));
+            unlockedSetStat("buffer_pool_misses", Long.valueOf(ByteArrayPool.getMisses()));
+            unlockedSetStat("buffer_pool_outstanding", Long.valueOf(ByteArrayPool.getOutstanding()));
+            if (octoSendLatency != null) {
+                unlockedSetStat("octo_send_packet_rate", Long.valueOf(Math.round(octoSendLatency.getRate())));
+                unlockedSetStat("octo_send_latency_p50_us",
+                        Long.valueOf(octoSendLatency.getPercentileMicros(50.0D)));
+                unlockedSetStat("octo_send_latency_p99_us",
+                        Long.valueOf(octoSendLatency.getPercentileMicros(99.0D)));
+            }
             unlockedSetStat("current_timestamp", timestamp);
             if (relayId != null)
                 unlockedSetStat("relay_id", relayId);
@@ -0,0 +1,165 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jitsi.service.configuration.ConfigurationService;
+import org.jitsi.service.libjitsi.LibJitsi;
+import org.jitsi.utils.logging.Logger;
+
+public class ByteArrayPool {
+    public static final String DEBUG_PNAME = "org.jitsi.videobridge.BUFFER_POOL_DEBUG";
+
+    private static final Logger logger = Logger.getLogger(ByteArrayPool.class);
+
+    private static final int[] SIZE_CLASSES = new int[] { 256, 1024, 2048, 8192 };
+
+    private static final int SHARED_CAPACITY = 1024;
+
+    private static final int LOCAL_CAPACITY = 32;
+
+    private static final long LEAK_AGE_MS = 30000L;
+
+    private static final boolean debug;
+
+    private static final BlockingQueue<byte[]>[] shared;
+
+    private static final ThreadLocal<LocalCache> localCache = ThreadLocal.withInitial(LocalCache::new);
+
+    private static final Map<byte[], Allocation> outstandingAllocations = new IdentityHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static final AtomicLong outstanding = new AtomicLong();
+
+    static {
+        ConfigurationService cfg = LibJitsi.getConfigurationService();
+        debug = (cfg != null && cfg.getBoolean(DEBUG_PNAME, false));
+        shared = (BlockingQueue<byte[]>[])new BlockingQueue[SIZE_CLASSES.length];
+        for (int i = 0; i < SIZE_CLASSES.length; i++)
+            shared[i] = new ArrayBlockingQueue<>(SHARED_CAPACITY);
+    }
+
+    private static int sizeClass(int size) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size <= SIZE_CLASSES[i])
+                return i;
+        }
+        return -1;
+    }
+
+    private static int pooledSizeClass(byte[] buf) {
+        int sizeClass = sizeClass(buf.length);
+        return (sizeClass > -1 && SIZE_CLASSES[sizeClass] == buf.length) ? sizeClass : -1;
+    }
+
+    public static byte[] getBuffer(int size) {
+        int sizeClass = sizeClass(size);
+        if (sizeClass < 0) {
+            misses.incrementAndGet();
+            return new byte[size];
+        }
+        byte[] buf = localCache.get().poll(sizeClass);
+        if (buf == null)
+            buf = shared[sizeClass].poll();
+        if (buf == null) {
+            misses.incrementAndGet();
+            buf = new byte[SIZE_CLASSES[sizeClass]];
+        } else {
+            hits.incrementAndGet();
+        }
+        outstanding.incrementAndGet();
+        if (debug)
+            synchronized (outstandingAllocations) {
+                outstandingAllocations.put(buf, new Allocation());
+            }
+        return buf;
+    }
+
+    public static void returnBuffer(byte[] buf) {
+        if (buf == null)
+            return;
+        int sizeClass = pooledSizeClass(buf);
+        if (sizeClass < 0)
+            return;
+        if (debug)
+            synchronized (outstandingAllocations) {
+                if (outstandingAllocations.remove(buf) == null) {
+                    logger.warn("A buffer was returned to the pool twice or was not allocated from it.", new Throwable());
+                    return;
+                }
+            }
+        outstanding.decrementAndGet();
+        if (!localCache.get().offer(sizeClass, buf))
+            shared[sizeClass].offer(buf);
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    public static long getOutstanding() {
+        return outstanding.get();
+    }
+
+    public static void logLeaks() {
+        if (!debug)
+            return;
+        long now = System.currentTimeMillis();
+        synchronized (outstandingAllocations) {
+            for (Allocation allocation : outstandingAllocations.values()) {
+                if (!allocation.reported && now - allocation.timeMs > LEAK_AGE_MS) {
+                    allocation.reported = true;
+                    logger.warn("A pooled buffer has not been returned for " + (now - allocation.timeMs) + " ms.", allocation.site);
+                }
+            }
+        }
+    }
+
+    private static class Allocation {
+        private final long timeMs = System.currentTimeMillis();
+
+        private final Throwable site = new Throwable();
+
+        private boolean reported = false;
+
+        private Allocation() {}
+    }
+
+    private static class LocalCache {
+        private final byte[][][] buffers = new byte[SIZE_CLASSES.length][LOCAL_CAPACITY][];
+
+        private final int[] sizes = new int[SIZE_CLASSES.length];
+
+        private LocalCache() {}
+
+        private byte[] poll(int sizeClass) {
+            int size = this.sizes[sizeClass];
+            if (size == 0)
+                return null;
+            size--;
+            byte[] buf = this.buffers[sizeClass][size];
+            this.buffers[sizeClass][size] = null;
+            this.sizes[sizeClass] = size;
+            return buf;
+        }
+
+        private boolean offer(int sizeClass, byte[] buf) {
+            int size = this.sizes[sizeClass];
+            if (size == LOCAL_CAPACITY)
+                return false;
+            this.buffers[sizeClass][size] = buf;
+            this.sizes[sizeClass] = size + 1;
+            return true;
+        }
+    }
+}
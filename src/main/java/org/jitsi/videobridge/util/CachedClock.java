@@ -0,0 +1,42 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.concurrent.locks.LockSupport;
+
+public class CachedClock implements Clock, Runnable {
+    private static final long TICK_NANOS = 1000000L;
+
+    private static final long MONOTONIC_START_NANOS = System.nanoTime();
+
+    public static final CachedClock INSTANCE = new CachedClock();
+
+    public static final Clock MONOTONIC = INSTANCE::monotonicMillis;
+
+    static {
+        Thread thread = new Thread(INSTANCE, CachedClock.class.getSimpleName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private volatile long now = System.currentTimeMillis();
+
+    private volatile long monotonicNow = 0L;
+
+    private CachedClock() {}
+
+    public long millis() {
+        return this.now;
+    }
+
+    public long monotonicMillis() {
+        return this.monotonicNow;
+    }
+
+    public void run() {
+        while (true) {
+            LockSupport.parkNanos(TICK_NANOS);
+            this.now = System.currentTimeMillis();
+            this.monotonicNow = (System.nanoTime() - MONOTONIC_START_NANOS) / 1000000L;
+        }
+    }
+}
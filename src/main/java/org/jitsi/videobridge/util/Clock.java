@@ -0,0 +1,5 @@
+package org.jitsi.videobridge.util;
+
+public interface Clock {
+    long millis();
+}
@@ -0,0 +1,112 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.Arrays;
+
+public class CopyOnWriteIntSet {
+    private static final int[] EMPTY_INT_ARRAY = new int[0];
+
+    private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(EMPTY_INT_ARRAY);
+
+    private volatile Snapshot snapshot = EMPTY_SNAPSHOT;
+
+    public boolean contains(int value) {
+        return this.snapshot.contains(value);
+    }
+
+    public int size() {
+        return this.snapshot.elements.length;
+    }
+
+    public boolean isEmpty() {
+        return (this.snapshot.elements.length == 0);
+    }
+
+    public int[] toArray() {
+        int[] elements = this.snapshot.elements;
+        return (elements.length == 0) ? elements : elements.clone();
+    }
+
+    public synchronized boolean add(int value) {
+        Snapshot snapshot = this.snapshot;
+        if (snapshot.contains(value))
+            return false;
+        int length = snapshot.elements.length;
+        int[] elements = Arrays.copyOf(snapshot.elements, length + 1);
+        elements[length] = value;
+        this.snapshot = new Snapshot(elements);
+        return true;
+    }
+
+    public synchronized boolean remove(int value) {
+        int[] elements = this.snapshot.elements;
+        int length = elements.length;
+        for (int i = 0; i < length; i++) {
+            if (elements[i] == value) {
+                if (length == 1) {
+                    this.snapshot = EMPTY_SNAPSHOT;
+                } else {
+                    int[] newElements = new int[length - 1];
+                    System.arraycopy(elements, 0, newElements, 0, i);
+                    System.arraycopy(elements, i + 1, newElements, i, length - i - 1);
+                    this.snapshot = new Snapshot(newElements);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        this.snapshot = EMPTY_SNAPSHOT;
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ h >>> 16;
+    }
+
+    private static class Snapshot {
+        private final int[] elements;
+
+        private final int[] table;
+
+        private final boolean containsZero;
+
+        private Snapshot(int[] elements) {
+            int capacity = 2;
+            while (capacity < elements.length * 2)
+                capacity <<= 1;
+            int[] table = new int[capacity];
+            int mask = capacity - 1;
+            boolean containsZero = false;
+            for (int value : elements) {
+                if (value == 0) {
+                    containsZero = true;
+                    continue;
+                }
+                int i = mix(value) & mask;
+                while (table[i] != 0)
+                    i = i + 1 & mask;
+                table[i] = value;
+            }
+            this.elements = elements;
+            this.table = table;
+            this.containsZero = containsZero;
+        }
+
+        private boolean contains(int value) {
+            if (value == 0)
+                return this.containsZero;
+            int[] table = this.table;
+            int mask = table.length - 1;
+            for (int i = mix(value) & mask;; i = i + 1 & mask) {
+                int v = table[i];
+                if (v == value)
+                    return true;
+                if (v == 0)
+                    return false;
+            }
+        }
+    }
+}
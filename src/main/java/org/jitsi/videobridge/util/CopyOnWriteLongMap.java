@@ -0,0 +1,133 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class CopyOnWriteLongMap<V> {
+    private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(new long[2], new Object[2], 0);
+
+    private volatile Snapshot snapshot = EMPTY_SNAPSHOT;
+
+    public V get(long key) {
+        return this.snapshot.get(key);
+    }
+
+    public boolean containsKey(long key) {
+        return (this.snapshot.get(key) != null);
+    }
+
+    public int size() {
+        return this.snapshot.size;
+    }
+
+    public boolean isEmpty() {
+        return (this.snapshot.size == 0);
+    }
+
+    public List<V> values() {
+        Snapshot snapshot = this.snapshot;
+        List<V> values = new ArrayList<>(snapshot.size);
+        for (Object value : snapshot.values) {
+            if (value != null)
+                values.add((V)value);
+        }
+        return values;
+    }
+
+    public synchronized V put(long key, V value) {
+        Objects.requireNonNull(value, "value");
+        Snapshot snapshot = this.snapshot;
+        V oldValue = snapshot.get(key);
+        if (oldValue == value)
+            return oldValue;
+        int size = (oldValue == null) ? snapshot.size + 1 : snapshot.size;
+        int capacity = snapshot.keys.length;
+        while (capacity < size * 2)
+            capacity <<= 1;
+        Snapshot newSnapshot = new Snapshot(new long[capacity], new Object[capacity], size);
+        newSnapshot.copyFrom(snapshot, Long.MIN_VALUE, null);
+        newSnapshot.insert(key, value);
+        this.snapshot = newSnapshot;
+        return oldValue;
+    }
+
+    public synchronized V remove(long key) {
+        Snapshot snapshot = this.snapshot;
+        V oldValue = snapshot.get(key);
+        if (oldValue != null)
+            this.snapshot = snapshot.without(key, oldValue);
+        return oldValue;
+    }
+
+    public synchronized boolean remove(long key, V value) {
+        Snapshot snapshot = this.snapshot;
+        V oldValue = snapshot.get(key);
+        if (oldValue == null || !oldValue.equals(value))
+            return false;
+        this.snapshot = snapshot.without(key, oldValue);
+        return true;
+    }
+
+    public synchronized void clear() {
+        this.snapshot = EMPTY_SNAPSHOT;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ h >>> 32);
+    }
+
+    private static class Snapshot {
+        private final long[] keys;
+
+        private final Object[] values;
+
+        private final int size;
+
+        private Snapshot(long[] keys, Object[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+
+        private <V> V get(long key) {
+            long[] keys = this.keys;
+            Object[] values = this.values;
+            int mask = keys.length - 1;
+            for (int i = mix(key) & mask;; i = i + 1 & mask) {
+                Object value = values[i];
+                if (value == null)
+                    return null;
+                if (keys[i] == key)
+                    return (V)value;
+            }
+        }
+
+        private void insert(long key, Object value) {
+            int mask = this.keys.length - 1;
+            int i = mix(key) & mask;
+            while (this.values[i] != null && this.keys[i] != key)
+                i = i + 1 & mask;
+            this.keys[i] = key;
+            this.values[i] = value;
+        }
+
+        private void copyFrom(Snapshot other, long skipKey, Object skipValue) {
+            for (int i = 0; i < other.values.length; i++) {
+                Object value = other.values[i];
+                if (value != null && (value != skipValue || other.keys[i] != skipKey))
+                    insert(other.keys[i], value);
+            }
+        }
+
+        private Snapshot without(long key, Object value) {
+            if (this.size == 1)
+                return EMPTY_SNAPSHOT;
+            Snapshot snapshot = new Snapshot(new long[this.keys.length], new Object[this.values.length], this.size - 1);
+            snapshot.copyFrom(this, key, value);
+            return snapshot;
+        }
+    }
+}
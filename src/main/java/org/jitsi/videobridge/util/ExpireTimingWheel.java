@@ -0,0 +1,179 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+import org.jitsi.utils.logging.Logger;
+
+public class ExpireTimingWheel {
+    private static final Logger logger = Logger.getLogger(ExpireTimingWheel.class);
+
+    private final long tickMs;
+
+    private final Timer[] buckets;
+
+    private final int mask;
+
+    private final Executor expireExecutor;
+
+    private long currentTick;
+
+    private int size = 0;
+
+    public ExpireTimingWheel(long tickMs, int wheelSize, Executor expireExecutor) {
+        if (tickMs <= 0L)
+            throw new IllegalArgumentException("tickMs");
+        if (wheelSize <= 0 || (wheelSize & wheelSize - 1) != 0)
+            throw new IllegalArgumentException("wheelSize");
+        this.tickMs = tickMs;
+        this.buckets = new Timer[wheelSize];
+        this.mask = wheelSize - 1;
+        this.expireExecutor = Objects.<Executor>requireNonNull(expireExecutor, "expireExecutor");
+        this.currentTick = System.currentTimeMillis() / tickMs;
+    }
+
+    public long getTickMs() {
+        return this.tickMs;
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    public Timer schedule(Expireable expireable, LongSupplier deadline, long recheckMs) {
+        Timer timer = new Timer(this, expireable, deadline, recheckMs);
+        long initialDeadline = deadline.getAsLong();
+        synchronized (this) {
+            arm(timer, initialDeadline);
+        }
+        return timer;
+    }
+
+    public void advance(long now) {
+        List<Timer> due = null;
+        synchronized (this) {
+            long targetTick = now / this.tickMs;
+            long ticks = Math.min(targetTick - this.currentTick, this.buckets.length);
+            for (long i = 1L; i <= ticks; i++) {
+                int bucket = (int)(this.currentTick + i) & this.mask;
+                Timer timer = this.buckets[bucket];
+                while (timer != null) {
+                    Timer next = timer.next;
+                    if (timer.armedTick <= targetTick) {
+                        unlink(timer);
+                        if (due == null)
+                            due = new ArrayList<>();
+                        due.add(timer);
+                    }
+                    timer = next;
+                }
+            }
+            if (targetTick > this.currentTick)
+                this.currentTick = targetTick;
+        }
+        if (due != null)
+            for (Timer timer : due)
+                fire(timer, now);
+    }
+
+    private void fire(Timer timer, long now) {
+        long deadline;
+        try {
+            deadline = timer.deadline.getAsLong();
+            if (deadline <= now && timer.expireable.shouldExpire()) {
+                this.expireExecutor.execute(timer.expireable::safeExpire);
+                deadline = now + timer.recheckMs;
+            } else if (deadline <= now) {
+                deadline = now + timer.recheckMs;
+            }
+        } catch (Exception e) {
+            logger.error("Failed to check expiry of " + timer.expireable, e);
+            deadline = now + timer.recheckMs;
+        }
+        synchronized (this) {
+            if (!timer.cancelled && timer.bucket < 0)
+                arm(timer, deadline);
+        }
+    }
+
+    private void arm(Timer timer, long deadline) {
+        if (timer.cancelled)
+            return;
+        if (timer.bucket >= 0)
+            unlink(timer);
+        long tick = Math.max((deadline + this.tickMs - 1L) / this.tickMs, this.currentTick + 1L);
+        int bucket = (int)tick & this.mask;
+        timer.armedTick = tick;
+        timer.armedDeadline = deadline;
+        timer.bucket = bucket;
+        timer.prev = null;
+        timer.next = this.buckets[bucket];
+        if (timer.next != null)
+            timer.next.prev = timer;
+        this.buckets[bucket] = timer;
+        this.size++;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev == null) {
+            this.buckets[timer.bucket] = timer.next;
+        } else {
+            timer.prev.next = timer.next;
+        }
+        if (timer.next != null)
+            timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+        timer.bucket = -1;
+        this.size--;
+    }
+
+    public static class Timer {
+        private final ExpireTimingWheel wheel;
+
+        private final Expireable expireable;
+
+        private final LongSupplier deadline;
+
+        private final long recheckMs;
+
+        private volatile long armedDeadline = Long.MAX_VALUE;
+
+        private long armedTick;
+
+        private int bucket = -1;
+
+        private boolean cancelled = false;
+
+        private Timer prev;
+
+        private Timer next;
+
+        private Timer(ExpireTimingWheel wheel, Expireable expireable, LongSupplier deadline, long recheckMs) {
+            this.wheel = wheel;
+            this.expireable = Objects.<Expireable>requireNonNull(expireable, "expireable");
+            this.deadline = Objects.<LongSupplier>requireNonNull(deadline, "deadline");
+            this.recheckMs = Math.max(recheckMs, wheel.tickMs);
+        }
+
+        public void touch() {
+            long deadline = this.deadline.getAsLong();
+            if (deadline < this.armedDeadline)
+                synchronized (this.wheel) {
+                    if (deadline < this.armedDeadline)
+                        this.wheel.arm(this, deadline);
+                }
+        }
+
+        public void cancel() {
+            synchronized (this.wheel) {
+                this.cancelled = true;
+                if (this.bucket >= 0)
+                    this.wheel.unlink(this);
+            }
+        }
+    }
+}
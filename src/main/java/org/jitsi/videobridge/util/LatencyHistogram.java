@@ -0,0 +1,97 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+    private static final int BUCKET_COUNT = 32;
+
+    private static final long WINDOW_NANOS = 10000000000L;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    private long[] windowStartCounts = new long[BUCKET_COUNT];
+
+    private long windowStartNanos = System.nanoTime();
+
+    private long[] previousWindowStartCounts = this.windowStartCounts;
+
+    private long previousWindowStartNanos = this.windowStartNanos;
+
+    private static int bucket(long micros) {
+        if (micros <= 0L)
+            return 0;
+        return Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+    }
+
+    public void record(long nanos) {
+        this.buckets.incrementAndGet(bucket(nanos / 1000L));
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = System.nanoTime();
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts[i] = this.buckets.get(i);
+        if (now - this.windowStartNanos >= WINDOW_NANOS) {
+            this.previousWindowStartCounts = this.windowStartCounts;
+            this.previousWindowStartNanos = this.windowStartNanos;
+            this.windowStartCounts = counts;
+            this.windowStartNanos = now;
+        }
+        long[] windowCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            windowCounts[i] = counts[i] - this.previousWindowStartCounts[i];
+        return new Snapshot(windowCounts, now - this.previousWindowStartNanos);
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+
+        private final long count;
+
+        private final long durationNanos;
+
+        public Snapshot(long[] counts, long durationNanos) {
+            long count = 0L;
+            for (long c : counts)
+                count += c;
+            this.counts = counts;
+            this.count = count;
+            this.durationNanos = durationNanos;
+        }
+
+        public long getCount() {
+            return this.count;
+        }
+
+        public long getDurationNanos() {
+            return this.durationNanos;
+        }
+
+        public long[] addTo(long[] counts) {
+            if (counts == null)
+                counts = new long[this.counts.length];
+            for (int i = 0; i < this.counts.length; i++)
+                counts[i] = counts[i] + this.counts[i];
+            return counts;
+        }
+
+        public double getRate() {
+            return (this.durationNanos <= 0L) ? 0.0D : this.count * 1.0E9D / this.durationNanos;
+        }
+
+        public long getPercentileMicros(double percentile) {
+            if (this.count == 0L)
+                return 0L;
+            long rank = (long)Math.ceil(this.count * percentile / 100.0D);
+            long seen = 0L;
+            for (int i = 0; i < this.counts.length; i++) {
+                seen += this.counts[i];
+                if (seen >= rank)
+                    return (i == 0) ? 0L : (1L << i) - 1L;
+            }
+            return (1L << this.counts.length - 1) - 1L;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package org.jitsi.videobridge.util;
+
+public class ManualClock implements Clock {
+    private volatile long now;
+
+    public ManualClock(long now) {
+        this.now = now;
+    }
+
+    public long millis() {
+        return this.now;
+    }
+
+    public void setMillis(long now) {
+        this.now = now;
+    }
+
+    public synchronized void advance(long deltaMs) {
+        this.now += deltaMs;
+    }
+}
@@ -0,0 +1,67 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import org.jitsi.utils.logging.Logger;
+
+public class SerialExecutor implements Executor {
+    private static final Logger logger = Logger.getLogger(SerialExecutor.class);
+
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Executor executor;
+
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    private boolean running = false;
+
+    public SerialExecutor(Executor executor) {
+        this.executor = Objects.<Executor>requireNonNull(executor, "executor");
+    }
+
+    public void execute(Runnable task) {
+        Objects.<Runnable>requireNonNull(task, "task");
+        synchronized (this.tasks) {
+            this.tasks.add(task);
+            if (this.running)
+                return;
+            this.running = true;
+        }
+        schedule();
+    }
+
+    private void schedule() {
+        try {
+            this.executor.execute(this::run);
+        } catch (RejectedExecutionException ree) {
+            synchronized (this.tasks) {
+                this.running = false;
+                this.tasks.clear();
+            }
+            logger.warn("Failed to schedule tasks: " + ree);
+        }
+    }
+
+    private void run() {
+        for (int i = 0; i < MAX_TASKS_PER_RUN; i++) {
+            Runnable task;
+            synchronized (this.tasks) {
+                task = this.tasks.poll();
+                if (task == null) {
+                    this.running = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("Task failed", t);
+            }
+        }
+        schedule();
+    }
+}
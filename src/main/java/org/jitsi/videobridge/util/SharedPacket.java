@@ -0,0 +1,50 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class SharedPacket {
+    private final byte[] buffer;
+
+    private final int length;
+
+    private final Consumer<byte[]> recycler;
+
+    private final AtomicInteger refCount = new AtomicInteger(1);
+
+    public SharedPacket(byte[] buffer, int length, Consumer<byte[]> recycler) {
+        this.buffer = Objects.<byte[]>requireNonNull(buffer, "buffer");
+        if (length < 0 || length > buffer.length)
+            throw new IllegalArgumentException("length");
+        this.length = length;
+        this.recycler = recycler;
+    }
+
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    public int getLength() {
+        return this.length;
+    }
+
+    public SharedPacket retain() {
+        if (this.refCount.getAndIncrement() <= 0) {
+            this.refCount.decrementAndGet();
+            throw new IllegalStateException("Packet already released");
+        }
+        return this;
+    }
+
+    public void release() {
+        int refCount = this.refCount.decrementAndGet();
+        if (refCount == 0) {
+            if (this.recycler != null)
+                this.recycler.accept(this.buffer);
+        } else if (refCount < 0) {
+            throw new IllegalStateException("Packet released too many times");
+        }
+    }
+}
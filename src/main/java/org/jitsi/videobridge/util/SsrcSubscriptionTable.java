@@ -0,0 +1,52 @@
+package org.jitsi.videobridge.util;
+
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class SsrcSubscriptionTable {
+    private final CopyOnWriteLongMap<AtomicLongArray> rows = new CopyOnWriteLongMap<>();
+
+    public boolean isSubscribed(long ssrc, int index) {
+        if (index < 0)
+            return false;
+        AtomicLongArray row = this.rows.get(ssrc & 0xFFFFFFFFL);
+        int word = index >>> 6;
+        return (row != null && word < row.length() && (row.get(word) & 1L << index) != 0L);
+    }
+
+    public void set(long ssrc, int index, boolean subscribed) {
+        if (index < 0 || isSubscribed(ssrc, index) == subscribed)
+            return;
+        set0(ssrc & 0xFFFFFFFFL, index, subscribed);
+    }
+
+    private synchronized void set0(long ssrc, int index, boolean subscribed) {
+        AtomicLongArray row = this.rows.get(ssrc);
+        int word = index >>> 6;
+        long mask = 1L << index;
+        if (subscribed) {
+            if (row == null || word >= row.length()) {
+                AtomicLongArray newRow = new AtomicLongArray(word + 1);
+                if (row != null)
+                    for (int i = 0; i < row.length(); i++)
+                        newRow.set(i, row.get(i));
+                row = newRow;
+                this.rows.put(ssrc, row);
+            }
+            row.set(word, row.get(word) | mask);
+        } else if (row != null && word < row.length()) {
+            row.set(word, row.get(word) & (mask ^ 0xFFFFFFFFFFFFFFFFL));
+        }
+    }
+
+    public synchronized void clear(int index) {
+        if (index < 0)
+            return;
+        int word = index >>> 6;
+        long mask = 1L << index;
+        for (AtomicLongArray row : this.rows.values()) {
+            if (word < row.length())
+                row.set(word, row.get(word) & (mask ^ 0xFFFFFFFFFFFFFFFFL));
+        }
+    }
+}
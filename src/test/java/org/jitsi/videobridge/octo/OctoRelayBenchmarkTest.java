@@ -0,0 +1,333 @@
+package org.jitsi.videobridge.octo;
+
+import java.lang.management.ManagementFactory;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import net.java.sip.communicator.util.ServiceUtils;
+import org.jitsi.impl.osgi.framework.OSGiLauncher;
+import org.jitsi.service.configuration.ConfigurationService;
+import org.jitsi.service.neomedia.StreamConnector;
+import org.jitsi.utils.logging.Logger;
+import org.jitsi.videobridge.Conference;
+import org.jitsi.videobridge.Videobridge;
+import org.jitsi.videobridge.osgi.JvbBundleConfig;
+import org.jitsi.xmpp.extensions.colibri.ColibriConferenceIQ;
+import org.jivesoftware.smack.packet.IQ;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.jxmpp.jid.Jid;
+import org.jxmpp.jid.impl.JidCreate;
+import org.osgi.framework.BundleActivator;
+import org.osgi.framework.BundleContext;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class OctoRelayBenchmarkTest {
+    private static final Logger logger = Logger.getLogger(OctoRelayBenchmarkTest.class);
+
+    private static final int BRIDGE_COUNT = Integer.getInteger("org.jitsi.videobridge.octo.benchmark.BRIDGE_COUNT", 2);
+
+    private static final int PACKET_RATE = Integer.getInteger("org.jitsi.videobridge.octo.benchmark.PACKET_RATE", 10000);
+
+    private static final long DURATION_MS = Long.getLong("org.jitsi.videobridge.octo.benchmark.DURATION_MS", 5000L);
+
+    private static final int PACKET_LENGTH = 1200;
+
+    private static final long START_TIMEOUT_MS = 30000L;
+
+    private static final long DRAIN_MS = 500L;
+
+    private static final String GID = "b00b1e";
+
+    private static final long SSRC = 0x12345678L;
+
+    private Bridge[] bridges;
+
+    @Before
+    public void setUp() throws Exception {
+        System.setProperty(ConfigurationService.PNAME_CONFIGURATION_FILE_IS_READ_ONLY, "true");
+        System.setProperty("org.jitsi.videobridge.rest", "false");
+        System.setProperty("org.jitsi.videobridge.xmpp", "false");
+        JvbBundleConfig bundleConfig = new JvbBundleConfig();
+        bundleConfig.setSystemPropertyDefaults();
+        String[][] bundles = getBundlesWithoutOctoRelayService(bundleConfig);
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        this.bridges = new Bridge[BRIDGE_COUNT];
+        for (int i = 0; i < BRIDGE_COUNT; i++) {
+            this.bridges[i] = new Bridge(bundles);
+            this.bridges[i].start(loopback.getHostAddress(), getFreePort(loopback));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (this.bridges == null)
+            return;
+        for (Bridge bridge : this.bridges) {
+            if (bridge != null)
+                bridge.stop();
+        }
+    }
+
+    @Test
+    public void relayThroughput() throws Exception {
+        Jid focus = JidCreate.from("focus@auth.localhost");
+        OctoChannel[] channels = new OctoChannel[BRIDGE_COUNT];
+        for (int i = 0; i < BRIDGE_COUNT; i++) {
+            List<String> relayIds = new ArrayList<>();
+            for (int j = 0; j < BRIDGE_COUNT; j++) {
+                if (j != i)
+                    relayIds.add(this.bridges[j].octoRelayService.getRelayId());
+            }
+            channels[i] = this.bridges[i].createOctoChannel(focus, relayIds);
+        }
+        int capacity = (int)(PACKET_RATE * (DURATION_MS + DRAIN_MS) / 1000L) + 1;
+        Receiver[] receivers = new Receiver[BRIDGE_COUNT - 1];
+        for (int i = 1; i < BRIDGE_COUNT; i++) {
+            OctoRelay relay = this.bridges[i].octoRelayService.getRelay();
+            OctoDemultiplexer.Target target = relay.getDemultiplexer().register(channels[i], (DatagramSocket)relay.getSocket());
+            receivers[i - 1] = new Receiver(target.createSocket(false, null), capacity);
+            receivers[i - 1].start("OctoRelayBenchmarkReceiver-" + i);
+        }
+        StreamConnector connector = channels[0].getTransportManager().getStreamConnector(channels[0]);
+        DatagramSocket socket = connector.getDataSocket();
+        byte[] buf = new byte[PACKET_LENGTH];
+        DatagramPacket p = new DatagramPacket(buf, buf.length);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long allocatedBefore = getAllocatedBytes(threadMXBean);
+        long intervalNanos = 1000000000L / PACKET_RATE;
+        long start = System.nanoTime();
+        long end = start + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        long next = start;
+        int seq = 0;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            writeRtp(buf, seq++, System.nanoTime());
+            socket.send(p);
+            next += intervalNanos;
+        }
+        Thread.sleep(DRAIN_MS);
+        long elapsedNanos = System.nanoTime() - start;
+        long allocatedBytes = getAllocatedBytes(threadMXBean) - allocatedBefore;
+        long received = 0L;
+        List<long[]> latencies = new ArrayList<>();
+        for (Receiver receiver : receivers) {
+            receiver.stop();
+            received += receiver.count;
+            latencies.add(Arrays.copyOf(receiver.latencies, receiver.count));
+        }
+        long[] sorted = merge(latencies);
+        double seconds = elapsedNanos / 1.0E9D;
+        logger.info("Octo relay benchmark: bridges=" + BRIDGE_COUNT + " sent=" + seq + " received=" + received + " packets_per_second=" +
+                Math.round(received / seconds) + " p50_us=" +
+                percentileMicros(sorted, 50.0D) + " p99_us=" +
+                percentileMicros(sorted, 99.0D) + " allocated_bytes_per_second=" +
+                Math.round(allocatedBytes / seconds) + " allocated_bytes_per_packet=" + ((seq == 0) ? 0L : (allocatedBytes / seq)));
+        assertTrue("No packets were relayed", (received > 0L));
+    }
+
+    private static String[][] getBundlesWithoutOctoRelayService(JvbBundleConfig bundleConfig) {
+        List<String[]> bundles = new ArrayList<>();
+        for (String[] level : bundleConfig.getBundles()) {
+            List<String> names = new ArrayList<>();
+            for (String name : level) {
+                if (!"org/jitsi/videobridge/octo/OctoRelayService".equals(name))
+                    names.add(name);
+            }
+            if (!names.isEmpty())
+                bundles.add(names.toArray(new String[0]));
+        }
+        return bundles.toArray(new String[0][]);
+    }
+
+    private static int getFreePort(InetAddress address) throws Exception {
+        try (DatagramSocket s = new DatagramSocket(0, address)) {
+            return s.getLocalPort();
+        }
+    }
+
+    private static void writeRtp(byte[] buf, int seq, long nanoTime) {
+        buf[0] = (byte)0x80;
+        buf[1] = (byte)100;
+        buf[2] = (byte)(seq >> 8);
+        buf[3] = (byte)seq;
+        int ts = seq * 90;
+        buf[4] = (byte)(ts >> 24);
+        buf[5] = (byte)(ts >> 16);
+        buf[6] = (byte)(ts >> 8);
+        buf[7] = (byte)ts;
+        buf[8] = (byte)(int)(SSRC >> 24L);
+        buf[9] = (byte)(int)(SSRC >> 16L);
+        buf[10] = (byte)(int)(SSRC >> 8L);
+        buf[11] = (byte)(int)SSRC;
+        for (int i = 0; i < 8; i++)
+            buf[12 + i] = (byte)(int)(nanoTime >> (56 - 8 * i));
+    }
+
+    private static long readNanoTime(byte[] buf, int off) {
+        long nanoTime = 0L;
+        for (int i = 0; i < 8; i++)
+            nanoTime = nanoTime << 8L | (buf[off + 12 + i] & 0xFF);
+        return nanoTime;
+    }
+
+    private static long getAllocatedBytes(com.sun.management.ThreadMXBean threadMXBean) {
+        long total = 0L;
+        for (long allocated : threadMXBean.getThreadAllocatedBytes(threadMXBean.getAllThreadIds())) {
+            if (allocated > 0L)
+                total += allocated;
+        }
+        return total;
+    }
+
+    private static long[] merge(List<long[]> latencies) {
+        int length = 0;
+        for (long[] l : latencies)
+            length += l.length;
+        long[] merged = new long[length];
+        int off = 0;
+        for (long[] l : latencies) {
+            System.arraycopy(l, 0, merged, off, l.length);
+            off += l.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private static long percentileMicros(long[] sorted, double percentile) {
+        if (sorted.length == 0)
+            return 0L;
+        int index = (int)Math.ceil(sorted.length * percentile / 100.0D) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000L;
+    }
+
+    private static class Bridge implements BundleActivator {
+        private final OSGiLauncher launcher;
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private volatile BundleContext bundleContext;
+
+        private Videobridge videobridge;
+
+        private OctoRelayService octoRelayService;
+
+        private Bridge(String[][] bundles) {
+            this.launcher = new OSGiLauncher(bundles, OctoRelayBenchmarkTest.class.getClassLoader());
+        }
+
+        public void start(BundleContext bundleContext) {
+            this.bundleContext = bundleContext;
+            this.started.countDown();
+        }
+
+        public void stop(BundleContext bundleContext) {}
+
+        private void start(String address, int port) throws Exception {
+            this.launcher.start(this);
+            assertTrue("OSGi did not start", this.started.await(START_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+            long deadline = System.currentTimeMillis() + START_TIMEOUT_MS;
+            while ((this.videobridge = ServiceUtils.getService(this.bundleContext, Videobridge.class)) == null && System.currentTimeMillis() < deadline)
+                Thread.sleep(100L);
+            assertNotNull("Videobridge did not start", this.videobridge);
+            ConfigurationService cfg = ServiceUtils.getService(this.bundleContext, ConfigurationService.class);
+            cfg.setProperty("org.jitsi.videobridge.octo.BIND_ADDRESS", address);
+            cfg.setProperty("org.jitsi.videobridge.octo.BIND_PORT", Integer.toString(port));
+            this.octoRelayService = new OctoRelayService();
+            this.octoRelayService.start(this.bundleContext);
+            assertNotNull("Octo relay did not start on port " + port, this.octoRelayService.getRelay());
+        }
+
+        private void stop() throws Exception {
+            if (this.octoRelayService != null)
+                this.octoRelayService.stop(this.bundleContext);
+            this.launcher.stop(this);
+        }
+
+        private OctoChannel createOctoChannel(Jid focus, List<String> relayIds) {
+            ColibriConferenceIQ conferenceIQ = new ColibriConferenceIQ();
+            conferenceIQ.setFrom(focus);
+            conferenceIQ.setGID(GID);
+            ColibriConferenceIQ.Content contentIQ = new ColibriConferenceIQ.Content("video");
+            ColibriConferenceIQ.OctoChannel channelIQ = new ColibriConferenceIQ.OctoChannel();
+            channelIQ.setExpire(60);
+            channelIQ.setInitiator(Boolean.valueOf(true));
+            channelIQ.setRelays(relayIds);
+            contentIQ.addChannel(channelIQ);
+            conferenceIQ.addContent(contentIQ);
+            IQ response = this.videobridge.handleColibriConferenceIQ(conferenceIQ);
+            assertTrue("Unexpected response: " + response.toXML(), (response instanceof ColibriConferenceIQ));
+            ColibriConferenceIQ responseIQ = (ColibriConferenceIQ)response;
+            Conference conference = this.videobridge.getConference(responseIQ.getID(), focus);
+            assertNotNull(conference);
+            String channelId = responseIQ.getContents().get(0).getChannels().get(0).getID();
+            return (OctoChannel)conference.getOrCreateContent("video").getChannel(channelId);
+        }
+    }
+
+    private static class Receiver implements Runnable {
+        private final DatagramSocket socket;
+
+        private final long[] latencies;
+
+        private volatile int count = 0;
+
+        private volatile boolean closed = false;
+
+        private Thread thread;
+
+        private Receiver(DatagramSocket socket, int capacity) throws Exception {
+            this.socket = socket;
+            this.socket.setSoTimeout(100);
+            this.latencies = new long[capacity];
+        }
+
+        private void start(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void stop() throws InterruptedException {
+            this.closed = true;
+            this.thread.join();
+            this.socket.close();
+        }
+
+        public void run() {
+            byte[] buf = new byte[1500];
+            DatagramPacket p = new DatagramPacket(buf, buf.length);
+            while (!this.closed) {
+                p.setData(buf, 0, buf.length);
+                try {
+                    this.socket.receive(p);
+                } catch (SocketTimeoutException ste) {
+                    continue;
+                } catch (Exception e) {
+                    logger.warn("Failed to receive a relayed packet: " + e);
+                    return;
+                }
+                long latency = System.nanoTime() - readNanoTime(p.getData(), p.getOffset());
+                int count = this.count;
+                if (count < this.latencies.length) {
+                    this.latencies[count] = latency;
+                    this.count = count + 1;
+                }
+            }
+        }
+    }
+}